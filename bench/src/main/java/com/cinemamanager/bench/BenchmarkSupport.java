@@ -0,0 +1,96 @@
+package com.cinemamanager.bench;
+
+import com.cinemamanager.enums.*;
+import com.cinemamanager.iface.Identifiable;
+import com.cinemamanager.model.cine.Movie;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+final class BenchmarkSupport {
+
+    private static final byte[] YES = "yes\n".getBytes(StandardCharsets.UTF_8);
+
+    // StorageManager reports every operation on stdout and asks for confirmation on stdin before deleting.
+    // Benchmarks must call this before anything touches ConsoleUtil, whose Scanner captures System.in once.
+    static void silenceConsole () {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setIn(new InputStream() {
+            private int position;
+
+            @Override
+            public int read () {
+                byte b = YES[position];
+                position = (position + 1) % YES.length;
+                return b;
+            }
+        });
+    }
+
+    static List <Movie> createMovies (int size) {
+        List <Movie> movies = new ArrayList<>(size);
+        Language[] languages = Language.values();
+        Country[] countries = Country.values();
+        AgeRating[] ageRatings = AgeRating.values();
+        MovieGenre[] genres = MovieGenre.values();
+        MovieStatus[] statuses = MovieStatus.values();
+
+        for (int i = 1; i <= size; i++) {
+            movies.add(new Movie(i, "Movie Title " + i,
+                    languages[i % languages.length], languages[(i / 7) % languages.length],
+                    Duration.ofMinutes(80 + i % 100),
+                    "Producer " + i % 500, "Director " + i % 2000,
+                    1950 + i % 75,
+                    countries[i % countries.length], ageRatings[i % ageRatings.length],
+                    genres[i % genres.length], statuses[i % statuses.length]));
+        }
+        return movies;
+    }
+
+    // Minimal entity: comparable by ID so TREE_SET can hold it too.
+    static final class Entity implements Identifiable <Integer>, Comparable <Entity> {
+        private final int id;
+        private int value;
+
+        Entity (int id) {
+            this.id = id;
+            this.value = id;
+        }
+
+        @Override
+        public Integer getId () {
+            return id;
+        }
+
+        int getValue () {
+            return value;
+        }
+
+        void setValue (int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo (Entity other) {
+            return Integer.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            return id == ((Entity) o).id;
+        }
+
+        @Override
+        public int hashCode () {
+            return Objects.hashCode(id);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.cinemamanager.bench;
+
+import com.cinemamanager.model.cine.Movie;
+import com.cinemamanager.util.JsonUtil;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JsonUtilBenchmark {
+
+    private static final Type MOVIE_LIST_TYPE = new TypeToken <List <Movie>>() {}.getType();
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private List <Movie> movies;
+    private Path readFile;
+    private Path writeFile;
+
+    @Setup(Level.Trial)
+    public void setUp () throws IOException {
+        movies = BenchmarkSupport.createMovies(size);
+        readFile = Files.createTempFile("movies-read", ".json");
+        writeFile = Files.createTempFile("movies-write", ".json");
+        JsonUtil.writeArray(readFile.toString(), movies);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown () throws IOException {
+        Files.deleteIfExists(readFile);
+        Files.deleteIfExists(writeFile);
+    }
+
+    @Benchmark
+    public void write () throws IOException {
+        JsonUtil.write(writeFile.toString(), movies);
+    }
+
+    @Benchmark
+    public void writeArray () throws IOException {
+        JsonUtil.writeArray(writeFile.toString(), movies);
+    }
+
+    @Benchmark
+    public List <Movie> read () {
+        return JsonUtil.read(readFile.toString(), MOVIE_LIST_TYPE, ArrayList::new);
+    }
+
+    @Benchmark
+    public void readEach (Blackhole blackhole) {
+        JsonUtil.<Movie>readEach(readFile.toString(), Movie.class, blackhole::consume);
+    }
+
+}
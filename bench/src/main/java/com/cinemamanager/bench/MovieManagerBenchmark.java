@@ -0,0 +1,94 @@
+package com.cinemamanager.bench;
+
+import com.cinemamanager.enums.Country;
+import com.cinemamanager.enums.MovieGenre;
+import com.cinemamanager.enums.MovieStatus;
+import com.cinemamanager.manager.MovieManager;
+import com.cinemamanager.model.cine.Movie;
+import com.cinemamanager.util.JsonUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieManagerBenchmark {
+
+    // MovieManager only loads from its fixed data files in the working directory.
+    private static final List <Path> DATA_FILES = List.of(
+            Path.of("movie.json"), Path.of("movie.bin"), Path.of("movie.journal"), Path.of("movie.journal.compacting"));
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private MovieManager movieManager;
+
+    @Setup(Level.Trial)
+    public void setUp () throws IOException {
+        for (Path file : DATA_FILES) {
+            if (Files.exists(file)) {
+                throw new IllegalStateException("Refusing to overwrite " + file.toAbsolutePath() + "; run the benchmarks from an empty directory.");
+            }
+        }
+        BenchmarkSupport.silenceConsole();
+        JsonUtil.writeArray("movie.json", BenchmarkSupport.createMovies(size));
+        movieManager = new MovieManager();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown () throws IOException {
+        for (Path file : DATA_FILES) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public List <Movie> searchByGenre () {
+        return movieManager.searchMoviesByGenre(MovieGenre.COMEDY);
+    }
+
+    @Benchmark
+    public List <Movie> searchByStatus () {
+        return movieManager.searchMoviesByStatus(MovieStatus.COMING_SOON);
+    }
+
+    @Benchmark
+    public List <Movie> searchFromCountry () {
+        return movieManager.searchMoviesFrom(Country.JAPAN);
+    }
+
+    @Benchmark
+    public List <Movie> searchReleasedFrom () {
+        return movieManager.searchMoviesReleasedFrom(2020);
+    }
+
+    @Benchmark
+    public List <Movie> searchWithMaxDuration () {
+        return movieManager.searchMoviesWithMaxDuration(Duration.ofMinutes(85));
+    }
+
+    @Benchmark
+    public List <Movie> searchByTitleRegex () {
+        return movieManager.searchMoviesByTitleRegex("title 4242");
+    }
+
+    @Benchmark
+    public List <Movie> searchByDirectorRegex () {
+        return movieManager.searchMoviesByDirectorRegex("^director 17$");
+    }
+
+    @Benchmark
+    public List <Movie> movieListings () {
+        return movieManager.getMovieListings();
+    }
+
+}
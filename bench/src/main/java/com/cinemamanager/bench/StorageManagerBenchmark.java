@@ -0,0 +1,81 @@
+package com.cinemamanager.bench;
+
+import com.cinemamanager.enums.CollectionType;
+import com.cinemamanager.exception.DuplicateElementException;
+import com.cinemamanager.util.StorageManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageManagerBenchmark {
+
+    @Param
+    private CollectionType collectionType;
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private StorageManager <Integer, BenchmarkSupport.Entity> storage;
+    private SplittableRandom random;
+    private int nextId;
+
+    @Setup(Level.Iteration)
+    public void setUp () throws DuplicateElementException {
+        BenchmarkSupport.silenceConsole();
+        storage = new StorageManager<>(collectionType);
+        for (int id = 1; id <= size; id++) {
+            storage.add(new BenchmarkSupport.Entity(id), true);
+        }
+        random = new SplittableRandom(42);
+        nextId = size + 1;
+    }
+
+    private int randomId () {
+        return random.nextInt(size) + 1;
+    }
+
+    // The store grows by one element per invocation; an iteration adds a small fraction of its size.
+    @Benchmark
+    public StorageManager <Integer, BenchmarkSupport.Entity> add () throws DuplicateElementException {
+        storage.add(new BenchmarkSupport.Entity(nextId++), false);
+        return storage;
+    }
+
+    @Benchmark
+    public Optional <BenchmarkSupport.Entity> findById () {
+        return storage.findById(randomId());
+    }
+
+    @Benchmark
+    public List <BenchmarkSupport.Entity> findBy () {
+        int bucket = random.nextInt(100);
+        return storage.findBy(e -> e.getValue() % 100 == bucket);
+    }
+
+    @Benchmark
+    public StorageManager <Integer, BenchmarkSupport.Entity> update () {
+        BenchmarkSupport.Entity entity = new BenchmarkSupport.Entity(randomId());
+        entity.setValue(random.nextInt());
+        storage.update(entity);
+        return storage;
+    }
+
+    // Deletes a random element and puts it back, so the store keeps its size; both halves are measured.
+    @Benchmark
+    public StorageManager <Integer, BenchmarkSupport.Entity> deleteAndRestore () throws DuplicateElementException {
+        int id = randomId();
+        storage.delete(id);
+        storage.add(new BenchmarkSupport.Entity(id), true);
+        return storage;
+    }
+
+}
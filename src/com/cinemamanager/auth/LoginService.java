@@ -8,41 +8,47 @@ import java.util.Optional;
 public final class LoginService {
 
     private final UserManager userManager;
+    private final SessionRegistry sessionRegistry;
 
     public LoginService(UserManager userManager) {
+        this(userManager, new SessionRegistry());
+    }
+
+    public LoginService(UserManager userManager, SessionRegistry sessionRegistry) {
         this.userManager = userManager;
+        this.sessionRegistry = sessionRegistry;
     }
 
-    public boolean login(String nickname, String password) {
+    public Optional<Session> login(String nickname, String password) {
 
-        Optional<User> optionalUser = userManager.findAllUsers().stream()
-                .filter(u -> u.getAccount().getNickname().equals(nickname)
-                        && u.getAccount().getPassword().equals(password))
-                .findFirst();
+        Optional<User> optionalUser = userManager.authenticate(nickname, password);
 
-        if (optionalUser.isEmpty()) return false;
+        if (optionalUser.isEmpty()) return Optional.empty();
 
         User user = optionalUser.get();
 
         if (!user.getAccount().isActive()) {
             System.out.println("Login failed: account is inactive.");
-            return false;
+            return Optional.empty();
         }
 
-        Session.startSession(user);
-        return true;
+        return Optional.of(sessionRegistry.open(user));
+    }
+
+    public void logout(Session session) {
+        sessionRegistry.close(session);
     }
 
-    public void logout() {
-        Session.endSession();
+    public boolean isSessionActive(Session session) {
+        return sessionRegistry.find(session.getToken()).isPresent();
     }
 
-    public boolean isSessionActive() {
-        return Session.isSessionActive();
+    public Optional<User> getActiveUser(String token) {
+        return sessionRegistry.find(token).map(Session::getUser);
     }
 
-    public User getActiveUser() {
-        return Session.getActiveUser();
+    public SessionRegistry getSessionRegistry() {
+        return sessionRegistry;
     }
 
 }
@@ -2,22 +2,42 @@ package com.cinemamanager.auth;
 
 import com.cinemamanager.model.people.User;
 
+import java.time.Duration;
+
 public final class Session {
-    private static User activeUser;
+    private final String token;
+    private final User user;
+    private final long createdAtMillis;
+    private volatile long lastAccessMillis;
+
+    Session(String token, User user, long nowMillis) {
+        this.token = token;
+        this.user = user;
+        this.createdAtMillis = nowMillis;
+        this.lastAccessMillis = nowMillis;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() {
+        return user;
+    }
 
-    public static void startSession(User user) {
-        activeUser = user;
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
     }
 
-    public static User getActiveUser() {
-        return activeUser;
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
     }
 
-    public static void endSession() {
-        activeUser = null;
+    void touch(long nowMillis) {
+        lastAccessMillis = nowMillis;
     }
 
-    public static boolean isSessionActive() {
-        return activeUser != null;
+    boolean isExpired(long nowMillis, Duration idleTimeout) {
+        return nowMillis - lastAccessMillis > idleTimeout.toMillis();
     }
 }
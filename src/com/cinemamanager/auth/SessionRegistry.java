@@ -0,0 +1,121 @@
+package com.cinemamanager.auth;
+
+import com.cinemamanager.model.people.User;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public final class SessionRegistry {
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final int DEFAULT_MAX_SESSIONS_PER_USER = 5;
+    private static final int TOKEN_BYTES = 32;
+
+    private final ConcurrentHashMap<String, Session> sessionsByToken = new ConcurrentHashMap<>();
+    // Oldest session first; each deque is only touched inside compute() for its user ID.
+    private final ConcurrentHashMap<Integer, Deque<Session>> sessionsByUser = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final Duration idleTimeout;
+    private final int maxSessionsPerUser;
+    private final ScheduledExecutorService sweeper;
+
+    public SessionRegistry() {
+        this(DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_SESSIONS_PER_USER);
+    }
+
+    public SessionRegistry(Duration idleTimeout, int maxSessionsPerUser) {
+        if (maxSessionsPerUser < 1) {
+            throw new IllegalArgumentException("A user must be allowed at least one session.");
+        }
+        this.idleTimeout = idleTimeout;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeout.toMillis() / 4);
+        sweeper.scheduleAtFixedRate(this::expireIdleSessions, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Opening a session beyond the per-user cap closes that user's oldest one.
+    public Session open(User user) {
+        long now = System.currentTimeMillis();
+        Session session = new Session(newToken(), user, now);
+
+        // The token is published inside the same compute as the deque, so closeAllFor can never run in between
+        // and miss it.
+        sessionsByUser.compute(user.getId(), (id, sessions) -> {
+            if (sessions == null) {
+                sessions = new ArrayDeque<>();
+            }
+            sessions.addLast(session);
+            sessionsByToken.put(session.getToken(), session);
+            while (sessions.size() > maxSessionsPerUser) {
+                Session evicted = sessions.removeFirst();
+                sessionsByToken.remove(evicted.getToken());
+            }
+            return sessions;
+        });
+        return session;
+    }
+
+    // Lock-free: a map read plus a timestamp write.
+    public Optional<Session> find(String token) {
+        if (token == null) return Optional.empty();
+        Session session = sessionsByToken.get(token);
+        if (session == null) return Optional.empty();
+
+        long now = System.currentTimeMillis();
+        if (session.isExpired(now, idleTimeout)) {
+            close(session);
+            return Optional.empty();
+        }
+        session.touch(now);
+        return Optional.of(session);
+    }
+
+    public void close(Session session) {
+        if (sessionsByToken.remove(session.getToken()) == null) return;
+
+        sessionsByUser.computeIfPresent(session.getUser().getId(), (id, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    public void closeAllFor(User user) {
+        sessionsByUser.computeIfPresent(user.getId(), (id, sessions) -> {
+            for (Session session : sessions) {
+                sessionsByToken.remove(session.getToken());
+            }
+            return null;
+        });
+    }
+
+    public int countActiveSessions() {
+        return sessionsByToken.size();
+    }
+
+    public void expireIdleSessions() {
+        long now = System.currentTimeMillis();
+        for (Session session : sessionsByToken.values()) {
+            if (session.isExpired(now, idleTimeout)) {
+                close(session);
+            }
+        }
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,7 @@
+package com.cinemamanager.enums;
+
+public enum FsyncPolicy {
+    ALWAYS,
+    BATCHED,
+    NEVER
+}
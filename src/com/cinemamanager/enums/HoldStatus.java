@@ -0,0 +1,8 @@
+package com.cinemamanager.enums;
+
+public enum HoldStatus {
+    HELD,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
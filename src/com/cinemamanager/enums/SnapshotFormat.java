@@ -0,0 +1,6 @@
+package com.cinemamanager.enums;
+
+public enum SnapshotFormat {
+    JSON,
+    BINARY
+}
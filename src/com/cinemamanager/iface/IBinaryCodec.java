@@ -0,0 +1,10 @@
+package com.cinemamanager.iface;
+
+import com.cinemamanager.util.BinaryUtil;
+
+import java.io.IOException;
+
+public interface IBinaryCodec <E> {
+    void write (BinaryUtil.Output out, E element) throws IOException;
+    E read (BinaryUtil.Input in) throws IOException;
+}
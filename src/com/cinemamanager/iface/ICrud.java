@@ -1,10 +1,14 @@
 package com.cinemamanager.iface;
 
 import com.cinemamanager.exception.DuplicateElementException;
+import com.cinemamanager.util.Page;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public interface ICrud <E extends Identifiable <ID>, ID> {
     void add (E element, boolean duplicatesAllowed) throws DuplicateElementException;
@@ -14,4 +18,27 @@ public interface ICrud <E extends Identifiable <ID>, ID> {
     List <E> findAll ();
     void update (E element) throws IllegalArgumentException;
     void delete (ID id);
+
+    // Reading without copying:
+    // findAll and findBy return lists the caller owns. These return the stored elements as they are now, so nothing
+    // is copied up front; a view follows later changes to the store and cannot be modified through.
+    int size ();
+    Collection <E> view ();
+    Stream <E> stream ();
+
+    default Stream <E> streamBy (Predicate <E> condition) {
+        return stream().filter(condition);
+    }
+
+    default boolean isEmpty () {
+        return size() == 0;
+    }
+
+    // Keyset pagination:
+    // The elements after `cursor` (null for the first page) in order of `sortKey`, ties broken by ID. `order` names
+    // the order; a cursor is only accepted back in the order it came from. Only one page is held at a time. This
+    // goes over the whole store for every page; stores with an ordered index override it. See Page.
+    default <K extends Comparable <? super K>> Page <E> findPage (String order, Function <E, K> sortKey, int pageSize, Page.Cursor cursor) {
+        return Page.of(stream(), order, sortKey, pageSize, cursor);
+    }
 }
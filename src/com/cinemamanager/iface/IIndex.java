@@ -0,0 +1,10 @@
+package com.cinemamanager.iface;
+
+public interface IIndex <ID, E extends Identifiable <ID>> {
+    void insert (E element);
+    void remove (E element);
+    void clear ();
+
+    // Constraint indexes reject an element here, before the store or any other index is touched.
+    default void checkInsertable (E element) throws IllegalArgumentException {}
+}
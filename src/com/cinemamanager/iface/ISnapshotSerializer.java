@@ -0,0 +1,10 @@
+package com.cinemamanager.iface;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+public interface ISnapshotSerializer <E> {
+    String getPath ();
+    boolean read (String path, Consumer <E> consumer);
+    void write (String path, Iterable <E> elements) throws IOException;
+}
@@ -2,27 +2,56 @@ package com.cinemamanager.manager;
 import com.cinemamanager.enums.*;
 import com.cinemamanager.exception.DuplicateElementException;
 import com.cinemamanager.exception.MovieNotFoundException;
+import com.cinemamanager.iface.ISnapshotSerializer;
 import com.cinemamanager.model.cine.Movie;
-import com.cinemamanager.util.ConsoleUtil;
-import com.cinemamanager.util.JsonUtil;
-import com.cinemamanager.util.MovieFactory;
-import com.cinemamanager.util.StorageManager;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
+import com.cinemamanager.util.*;
+import java.io.IOException;
 import java.time.Duration;
 import java.util.*;
 import java.util.regex.Pattern;
 
 public final class MovieManager {
     private final StorageManager <Integer, Movie> movieStorageManager;
+    private final JournalStore <Integer, Movie> movieJournal;
+    private final WriteBehindPersister <Integer, Movie> moviePersister;
     private static final String MOVIE_FILE_PATH = "movie.json";
+    private static final String MOVIE_BINARY_FILE_PATH = "movie.bin";
+    private static final String MOVIE_JOURNAL_PATH = "movie.journal";
     private int nextId;
 
+    // Index names, shared with MovieQuery:
+    static final String AUDIO_INDEX = "audio";
+    static final String SUBTITLES_INDEX = "subtitles";
+    static final String DURATION_INDEX = "duration";
+    static final String RELEASE_YEAR_INDEX = "releaseYear";
+    static final String COUNTRY_INDEX = "country";
+    static final String AGE_RATING_INDEX = "ageRating";
+    static final String GENRE_INDEX = "genre";
+    static final String STATUS_INDEX = "status";
+    private static final String TITLE_TEXT_INDEX = "titleText";
+    private static final String PRODUCER_TEXT_INDEX = "producerText";
+    private static final String DIRECTOR_TEXT_INDEX = "directorText";
+    private static final int TEXT_SEARCH_LIMIT = 50;
+    // Listings are in ID order, paged through a sorted index of the IDs.
+    private static final String ID_INDEX = "id";
+    private static final int LIST_PAGE_SIZE = 10;
+    private final PatternCache patternCache = new PatternCache();
+
     public MovieManager () {
+        this (SnapshotFormat.JSON);
+    }
+
+    public MovieManager (SnapshotFormat snapshotFormat) {
         this.movieStorageManager = new StorageManager<>(CollectionType.ARRAY_LIST);
+        ISnapshotSerializer <Movie> json = new JsonSnapshotSerializer<>(MOVIE_FILE_PATH, Movie.class);
+        ISnapshotSerializer <Movie> binary = new BinarySnapshotSerializer<>(MOVIE_BINARY_FILE_PATH, BinaryUtil.MOVIE);
+        this.movieJournal = new JournalStore<>(MOVIE_JOURNAL_PATH, Integer.class, Movie.class, movieStorageManager::view,
+                snapshotFormat == SnapshotFormat.BINARY ? List.of(binary, json) : List.of(json, binary));
+        this.moviePersister = new WriteBehindPersister<>(movieJournal);
+        createIndexes();
         loadFromFile();
 
-        OptionalInt maxId = movieStorageManager.findAll().stream()
+        OptionalInt maxId = movieStorageManager.stream()
                 .mapToInt(Movie::getId)
                 .max();
         this.nextId = maxId.isPresent() ? maxId.getAsInt() +1 : 1;
@@ -33,7 +62,7 @@ public final class MovieManager {
         try {
             movieStorageManager.add(newMovie, false);
             nextId++;
-            saveToFile();
+            saveToFile(newMovie);
             System.out.println("\nMovie registered successfully!\n");
         } catch (DuplicateElementException e) {
             System.out.println("Error registering the movie: " + e.getMessage());
@@ -42,85 +71,105 @@ public final class MovieManager {
 
     public void deleteMovieById (int id) {
         movieStorageManager.delete(id);
-        saveToFile();
+        if (movieStorageManager.findById(id).isEmpty()) {
+            moviePersister.markDeleted(id);
+        }
     }
 
     public Movie findMovieById (int id) throws MovieNotFoundException {
         return movieStorageManager.findById(id).orElseThrow(() -> new MovieNotFoundException("Movie with ID: " + id + " not found."));
     }
 
+    // Combined filters with sorting and paging; see MovieQuery.
+    public MovieQuery query () {
+        return new MovieQuery(movieStorageManager.query(), patternCache);
+    }
+
+    // Ranked: exact and partial matches first, then words that are slightly misspelt.
+    public List <Movie> searchMoviesByTitle (String text) {
+        return movieStorageManager.findByText(TITLE_TEXT_INDEX, text, TEXT_SEARCH_LIMIT);
+    }
+
     public List <Movie> searchMoviesByTitleRegex (String regex) {
-        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        Pattern pattern = patternCache.get(regex);
         return movieStorageManager.findBy(movie -> pattern.matcher(movie.getTitle()).find());
     }
 
     public List <Movie> searchMoviesByAudio (Language desiredAudio) {
-        return movieStorageManager.findBy(m -> m.getAudio().equals(desiredAudio));
+        return movieStorageManager.findByIndex(AUDIO_INDEX, desiredAudio);
     }
 
     public List <Movie> searchMoviesBySubs (Language desiredSubs) {
-        return movieStorageManager.findBy(m -> m.getSubtitles().equals(desiredSubs));
+        return movieStorageManager.findByIndex(SUBTITLES_INDEX, desiredSubs);
     }
 
     public List<Movie> searchMoviesWithMinDuration (Duration minDuration) {
-        return movieStorageManager.findBy(m -> m.getDuration().compareTo(minDuration) >= 0);
+        return movieStorageManager.findByRange(DURATION_INDEX, minDuration, null);
     }
 
     public List<Movie> searchMoviesWithMaxDuration (Duration maxDuration) {
-        return movieStorageManager.findBy(m -> m.getDuration().compareTo(maxDuration) <= 0);
+        return movieStorageManager.findByRange(DURATION_INDEX, null, maxDuration);
+    }
+
+    // Ranked: exact and partial matches first, then words that are slightly misspelt.
+    public List <Movie> searchMoviesByProducer (String text) {
+        return movieStorageManager.findByText(PRODUCER_TEXT_INDEX, text, TEXT_SEARCH_LIMIT);
     }
 
     public List <Movie> searchMoviesByProducerRegex (String regex) {
-        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        Pattern pattern = patternCache.get(regex);
         return movieStorageManager.findBy(movie -> pattern.matcher(movie.getProducer()).find());
     }
 
+    // Ranked: exact and partial matches first, then words that are slightly misspelt.
+    public List <Movie> searchMoviesByDirector (String text) {
+        return movieStorageManager.findByText(DIRECTOR_TEXT_INDEX, text, TEXT_SEARCH_LIMIT);
+    }
+
     public List <Movie> searchMoviesByDirectorRegex (String regex) {
-        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        Pattern pattern = patternCache.get(regex);
         return movieStorageManager.findBy(movie -> pattern.matcher(movie.getDirector()).find());
     }
 
     public List <Movie> searchMoviesReleasedFrom (int year) {
-        return movieStorageManager.findBy(m -> m.getReleaseYear() >= year);
+        return movieStorageManager.findByRange(RELEASE_YEAR_INDEX, year, null);
     }
 
     public List <Movie> searchMoviesFrom (Country country) {
-        return movieStorageManager.findBy(m -> m.getCountry().equals(country));
+        return movieStorageManager.findByIndex(COUNTRY_INDEX, country);
     }
 
     public List <Movie> searchMoviesByAgeRating (AgeRating ageRating) {
-        return movieStorageManager.findBy(m -> m.getAgeRating().equals(ageRating));
+        return movieStorageManager.findByIndex(AGE_RATING_INDEX, ageRating);
     }
 
     public List <Movie> searchMoviesByGenre (MovieGenre movieGenre) {
-        return movieStorageManager.findBy(m -> m.getGenre().equals(movieGenre));
+        return movieStorageManager.findByIndex(GENRE_INDEX, movieGenre);
     }
 
     public List <Movie> searchMoviesByStatus (MovieStatus movieStatus) {
-        return movieStorageManager.findBy(m -> m.getStatus().equals(movieStatus));
+        return movieStorageManager.findByIndex(STATUS_INDEX, movieStatus);
     }
 
     public List <Movie> findAllMovies () {
         return movieStorageManager.findAll();
     }
 
-    public void displayMovieList (List <Movie> movieList) {
-        for (Movie movie : movieList) {
-            System.out.println(movie);
-        }
+    // Paged by ID, LIST_PAGE_SIZE movies at a time.
+    public void displayMovieList (Collection <Movie> movieList) {
+        ConsoleUtil.showPaged(Page.pager(movieList, ID_INDEX, Movie::getId, LIST_PAGE_SIZE), System.out::println);
     }
 
     public List <Movie> getMovieListings () {
-        return movieStorageManager.findBy(m -> m.getStatus().equals(MovieStatus.NOW_SHOWING));
+        return movieStorageManager.findByIndex(STATUS_INDEX, MovieStatus.NOW_SHOWING);
     }
 
     public void showMovieListings () {
-        displayMovieList(getMovieListings());
+        displayMovieList(movieStorageManager.viewByIndex(STATUS_INDEX, MovieStatus.NOW_SHOWING));
     }
 
     public void updateMovie () {
-        List <Movie> movies = findAllMovies();
-        Movie movieToUpdate = selectMovieByIdFromList(movies);
+        Movie movieToUpdate = selectMovieByIdFromList(movieStorageManager.view());
         if (movieToUpdate != null) {
 
             String prompt = """
@@ -165,16 +214,16 @@ public final class MovieManager {
         }
     }
 
-    public Movie selectMovieByIdFromList(List <Movie> movieList) {
+    public Movie selectMovieByIdFromList(Collection <Movie> movieList) {
         if (movieList.isEmpty()) {
             System.out.println("No movies available to select.");
             return null;
         }
 
-        for (Movie movie : movieList) {
+        ConsoleUtil.showPaged(Page.pager(movieList, ID_INDEX, Movie::getId, LIST_PAGE_SIZE), movie -> {
             System.out.println("ID: " + movie.getId());
             System.out.println(movie);
-        }
+        });
 
         while (true) {
             int id = ConsoleUtil.readInt("Enter the ID of the movie to select: ");
@@ -196,71 +245,81 @@ public final class MovieManager {
     private void changeTitle (Movie movieToUpdate) {
         String newTitle = ConsoleUtil.readCapitalizedString("Enter the new title: ");
         movieToUpdate.setTitle(newTitle);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Title changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeAudioLanguage (Movie movieToUpdate) {
         Language newAudio = ConsoleUtil.readEnum(Language.class, "Select the audio language");
         movieToUpdate.setAudio(newAudio);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Language changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeSubLanguage (Movie movieToUpdate) {
         Language newSub = ConsoleUtil.readEnum(Language.class, "Select the subtitle language");
-        movieToUpdate.setAudio(newSub);
+        movieToUpdate.setSubtitles(newSub);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Subtitle changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeDuration (Movie movieToUpdate) {
         Duration newDuration = ConsoleUtil.readDuration("Enter the new movie duration: ");
         movieToUpdate.setDuration(newDuration);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Duration of the movie changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeProducer (Movie movieToUpdate) {
         String newProducer = ConsoleUtil.readCapitalizedString("Enter the new producer name: ");
         movieToUpdate.setProducer(newProducer);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Producer changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeDirector (Movie movieToUpdate) {
         String newDirector = ConsoleUtil.readCapitalizedString("Enter the new director name: ");
         movieToUpdate.setDirector(newDirector);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Director changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeYear (Movie movieToUpdate) {
         int newYear = ConsoleUtil.readInt("Enter the new year: ");
         movieToUpdate.setReleaseYear(newYear);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Release year changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeCountry (Movie movieToUpdate) {
         Country newCountry = ConsoleUtil.readEnum(Country.class, "Select the country");
         movieToUpdate.setCountry(newCountry);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Country of origin changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeAgeRating (Movie movieToUpdate) {
         AgeRating newAgeRating = ConsoleUtil.readEnum(AgeRating.class, "Select the age rating");
         movieToUpdate.setAgeRating(newAgeRating);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Age rating changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeGenre (Movie movieToUpdate) {
         MovieGenre newMovieGenre = ConsoleUtil.readEnum(MovieGenre.class, "Select the genre");
         movieToUpdate.setGenre(newMovieGenre);
+        movieStorageManager.reindex(movieToUpdate);
         System.out.println("Genre changed successfully!");
-        saveToFile();
+        saveToFile(movieToUpdate);
     }
 
     private void changeStatus (Movie movieToUpdate) {
@@ -283,20 +342,38 @@ public final class MovieManager {
         changeStatus(movieToUpdate);
     }
 
+    private void createIndexes () {
+        movieStorageManager.addHashIndex(AUDIO_INDEX, Movie::getAudio);
+        movieStorageManager.addHashIndex(SUBTITLES_INDEX, Movie::getSubtitles);
+        movieStorageManager.addSortedIndex(DURATION_INDEX, Movie::getDuration);
+        movieStorageManager.addSortedIndex(RELEASE_YEAR_INDEX, Movie::getReleaseYear);
+        movieStorageManager.addHashIndex(COUNTRY_INDEX, Movie::getCountry);
+        movieStorageManager.addHashIndex(AGE_RATING_INDEX, Movie::getAgeRating);
+        movieStorageManager.addHashIndex(GENRE_INDEX, Movie::getGenre);
+        movieStorageManager.addHashIndex(STATUS_INDEX, Movie::getStatus);
+        movieStorageManager.addSortedIndex(ID_INDEX, Movie::getId);
+        movieStorageManager.addTextIndex(TITLE_TEXT_INDEX, Movie::getTitle);
+        movieStorageManager.addTextIndex(PRODUCER_TEXT_INDEX, Movie::getProducer);
+        movieStorageManager.addTextIndex(DIRECTOR_TEXT_INDEX, Movie::getDirector);
+    }
+
     private void loadFromFile () {
-        Type type = new TypeToken <List <Movie> >() {}.getType();
-        List <Movie> loaded = JsonUtil.read(MOVIE_FILE_PATH, type, ArrayList::new);
         movieStorageManager.clear();
-        for (Movie m : loaded) {
+        movieJournal.load(m -> {
             try {
                 movieStorageManager.add(m, true);
             } catch (DuplicateElementException ignored) {}
-        }
+        });
+    }
+
+    // Writes every queued change now and syncs it. Called before the program exits; throws if they could not be saved.
+    public void flush () throws IOException {
+        moviePersister.flush();
     }
 
-    private void saveToFile () {
-        List <Movie> list = new ArrayList<>(movieStorageManager.findAll());
-        JsonUtil.write(MOVIE_FILE_PATH, list);
+    // Queued and written in the background; see flush().
+    private void saveToFile (Movie movie) {
+        moviePersister.markDirty(movie);
     }
 
 }
@@ -0,0 +1,145 @@
+package com.cinemamanager.manager;
+import com.cinemamanager.enums.*;
+import com.cinemamanager.model.cine.Movie;
+import com.cinemamanager.util.PatternCache;
+import com.cinemamanager.util.Query;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Catalogue filters that can be combined, e.g.
+// movieManager.query().genre(MovieGenre.DRAMA).audio(Language.SPANISH).maxDuration(Duration.ofHours(2)).releasedFrom(2015).list()
+// Indexed fields go through the query planner; the regex filters are checked on what the indexes leave.
+public final class MovieQuery {
+    private final Query <Integer, Movie> query;
+    private final PatternCache patternCache;
+    private Duration minDuration;
+    private Duration maxDuration;
+    private Integer releasedFrom;
+    private Integer releasedUntil;
+
+    MovieQuery (Query <Integer, Movie> query, PatternCache patternCache) {
+        this.query = query;
+        this.patternCache = patternCache;
+    }
+
+    public MovieQuery audio (Language audio) {
+        query.whereEquals(MovieManager.AUDIO_INDEX, audio);
+        return this;
+    }
+
+    public MovieQuery subtitles (Language subtitles) {
+        query.whereEquals(MovieManager.SUBTITLES_INDEX, subtitles);
+        return this;
+    }
+
+    public MovieQuery country (Country country) {
+        query.whereEquals(MovieManager.COUNTRY_INDEX, country);
+        return this;
+    }
+
+    public MovieQuery ageRating (AgeRating ageRating) {
+        query.whereEquals(MovieManager.AGE_RATING_INDEX, ageRating);
+        return this;
+    }
+
+    public MovieQuery genre (MovieGenre genre) {
+        query.whereEquals(MovieManager.GENRE_INDEX, genre);
+        return this;
+    }
+
+    public MovieQuery status (MovieStatus status) {
+        query.whereEquals(MovieManager.STATUS_INDEX, status);
+        return this;
+    }
+
+    public MovieQuery minDuration (Duration minDuration) {
+        this.minDuration = minDuration;
+        return this;
+    }
+
+    public MovieQuery maxDuration (Duration maxDuration) {
+        this.maxDuration = maxDuration;
+        return this;
+    }
+
+    public MovieQuery releasedFrom (int year) {
+        this.releasedFrom = year;
+        return this;
+    }
+
+    public MovieQuery releasedUntil (int year) {
+        this.releasedUntil = year;
+        return this;
+    }
+
+    public MovieQuery titleMatches (String regex) {
+        Pattern pattern = patternCache.get(regex);
+        query.where(movie -> pattern.matcher(movie.getTitle()).find());
+        return this;
+    }
+
+    public MovieQuery producerMatches (String regex) {
+        Pattern pattern = patternCache.get(regex);
+        query.where(movie -> pattern.matcher(movie.getProducer()).find());
+        return this;
+    }
+
+    public MovieQuery directorMatches (String regex) {
+        Pattern pattern = patternCache.get(regex);
+        query.where(movie -> pattern.matcher(movie.getDirector()).find());
+        return this;
+    }
+
+    public MovieQuery orderBy (Comparator <Movie> comparator) {
+        query.orderBy(comparator);
+        return this;
+    }
+
+    public MovieQuery orderByTitle () {
+        return orderBy(Comparator.comparing(Movie::getTitle, String.CASE_INSENSITIVE_ORDER));
+    }
+
+    public MovieQuery orderByReleaseYear () {
+        return orderBy(Comparator.comparingInt(Movie::getReleaseYear));
+    }
+
+    public MovieQuery offset (int offset) {
+        query.offset(offset);
+        return this;
+    }
+
+    public MovieQuery limit (int limit) {
+        query.limit(limit);
+        return this;
+    }
+
+    public List <Movie> list () {
+        return withRanges().list();
+    }
+
+    public int count () {
+        return withRanges().count();
+    }
+
+    public String explain () {
+        return withRanges().explain();
+    }
+
+    // Both bounds of a field make a single range condition, so the planner sees one estimate for it.
+    private Query <Integer, Movie> withRanges () {
+        if (minDuration != null || maxDuration != null) {
+            query.whereBetween(MovieManager.DURATION_INDEX, minDuration, maxDuration);
+            minDuration = null;
+            maxDuration = null;
+        }
+        if (releasedFrom != null || releasedUntil != null) {
+            query.whereBetween(MovieManager.RELEASE_YEAR_INDEX, releasedFrom, releasedUntil);
+            releasedFrom = null;
+            releasedUntil = null;
+        }
+        return query;
+    }
+
+}
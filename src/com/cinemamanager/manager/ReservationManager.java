@@ -0,0 +1,145 @@
+package com.cinemamanager.manager;
+
+import com.cinemamanager.enums.HoldStatus;
+import com.cinemamanager.model.cine.SeatHold;
+import com.cinemamanager.model.cine.SeatMap;
+import com.cinemamanager.model.cine.SeatRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+// Seat reservations for many terminals at once. Claiming a group of seats is a compare-and-set on the
+// showtime's SeatMap, so terminals selling different seats never wait for each other. A hold keeps its
+// seats taken until it is confirmed, released, or runs out of time.
+public final class ReservationManager {
+    private static final Duration DEFAULT_HOLD_DURATION = Duration.ofMinutes(10);
+    private static final int BEST_AVAILABLE_ATTEMPTS = 5;
+
+    private final Duration holdDuration;
+    private final Map <String, SeatHold> activeHolds = new ConcurrentHashMap<>();
+    private final Map <String, ScheduledFuture <?>> expiryTasks = new ConcurrentHashMap<>();
+    // Active holds per seat map, so a hold check only looks at the holds of one showtime. A hold leaves this index
+    // only after its seats were given back, so a seat never looks unheld while a release is still freeing it.
+    private final Map <SeatMap, Set <SeatHold>> holdsBySeatMap = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor expiryScheduler;
+    private final SeatAllocator seatAllocator = new SeatAllocator();
+
+    public ReservationManager () {
+        this (DEFAULT_HOLD_DURATION);
+    }
+
+    public ReservationManager (Duration holdDuration) {
+        this.holdDuration = holdDuration;
+        this.expiryScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.expiryScheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    // All seats or none. Empty if any of them is already taken or held.
+    public Optional <SeatHold> holdSeats (SeatMap seatMap, int... seats) {
+        if (seats.length == 0 || !seatMap.occupyAll(seats)) {
+            return Optional.empty();
+        }
+
+        SeatHold hold = new SeatHold(seatMap, seats, Instant.now().plus(holdDuration));
+        activeHolds.put(hold.getHoldId(), hold);
+        holdsBySeatMap.compute(seatMap, (map, holds) -> {
+            Set <SeatHold> updated = holds == null ? ConcurrentHashMap.newKeySet() : holds;
+            updated.add(hold);
+            return updated;
+        });
+        // Scheduled inside compute so the task is in expiryTasks before expire can look for it: expire's remove
+        // waits for compute to finish, even when the hold runs out before schedule returns.
+        expiryTasks.compute(hold.getHoldId(),
+                (id, old) -> expiryScheduler.schedule(() -> expire(hold), holdDuration.toMillis(), TimeUnit.MILLISECONDS));
+        return Optional.of(hold);
+    }
+
+    // Lets the cinema pick the seats. Another terminal can take the chosen block between the search and the claim,
+    // in which case the search runs again on the updated map.
+    public Optional <SeatHold> holdBestAvailable (SeatMap seatMap, SeatRequest request) {
+        for (int attempt = 0; attempt < BEST_AVAILABLE_ATTEMPTS; attempt++) {
+            Optional <int[]> block = seatAllocator.findBestBlock(seatMap, request);
+            if (block.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional <SeatHold> hold = holdSeats(seatMap, block.get());
+            if (hold.isPresent()) {
+                return hold;
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Turns the hold into a sale. False if it already expired or was released.
+    public boolean confirm (SeatHold hold) {
+        if (!hold.transition(HoldStatus.HELD, HoldStatus.CONFIRMED)) {
+            return false;
+        }
+        forget(hold);
+        return true;
+    }
+
+    public boolean release (SeatHold hold) {
+        if (!hold.transition(HoldStatus.HELD, HoldStatus.RELEASED)) {
+            return false;
+        }
+        hold.getSeatMap().freeAll(hold.getSeats());
+        forget(hold);
+        return true;
+    }
+
+    public Optional <SeatHold> findHold (String holdId) {
+        return Optional.ofNullable(activeHolds.get(holdId));
+    }
+
+    // True while the seat belongs to a pending hold, or to one that is still giving its seats back.
+    // Only the holds on this seat map are looked at.
+    public boolean isHeld (SeatMap seatMap, int seat) {
+        Set <SeatHold> holds = holdsBySeatMap.get(seatMap);
+        if (holds == null) return false;
+        for (SeatHold hold : holds) {
+            if (hold.getStatus() != HoldStatus.CONFIRMED && hold.contains(seat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int countActiveHolds () {
+        return activeHolds.size();
+    }
+
+    private void expire (SeatHold hold) {
+        if (hold.transition(HoldStatus.HELD, HoldStatus.EXPIRED)) {
+            hold.getSeatMap().freeAll(hold.getSeats());
+        }
+        activeHolds.remove(hold.getHoldId());
+        expiryTasks.remove(hold.getHoldId());
+        unindex(hold);
+    }
+
+    private void forget (SeatHold hold) {
+        activeHolds.remove(hold.getHoldId());
+        unindex(hold);
+        ScheduledFuture <?> expiry = expiryTasks.remove(hold.getHoldId());
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+    }
+
+    private void unindex (SeatHold hold) {
+        holdsBySeatMap.computeIfPresent(hold.getSeatMap(), (map, holds) -> {
+            holds.remove(hold);
+            return holds.isEmpty() ? null : holds;
+        });
+    }
+
+}
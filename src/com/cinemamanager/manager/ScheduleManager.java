@@ -1,59 +1,106 @@
 package com.cinemamanager.manager;
+import com.cinemamanager.model.cine.Auditorium;
+import com.cinemamanager.model.cine.Movie;
 import com.cinemamanager.model.cine.Showtime;
 import com.cinemamanager.util.ConsoleUtil;
-import java.time.DayOfWeek;
+import com.cinemamanager.util.DaySchedule;
+import com.cinemamanager.util.ScheduleCalendar;
+import com.cinemamanager.util.Timeline;
 import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
+// Showtimes are kept by date in a ScheduleCalendar, so only the days in use are in memory. Within a day each
+// auditorium has its own timeline, and showtimes are indexed by ID and by movie.
+// A closing time earlier than the opening time means the cinema closes after midnight. A showtime belongs to
+// the date it starts on, so overlap checks also look at the previous and next dates.
 public final class ScheduleManager {
-    private final Map <DayOfWeek, List<Showtime>> weeklySchedule;
+    private static final String SCHEDULE_DIRECTORY = "schedule";
+
+    private final Map <Integer, Auditorium> auditoriums;
+    private final ScheduleCalendar calendar;
     private final LocalTime openingTime;
     private final LocalTime closingTime;
 
     // ANTES DE CREAR EL OBJETO, VALIDAR QUE HORARIO APERTURA NO SEA ANTES A HORARIO CIERRE
     public ScheduleManager (LocalTime openingTime, LocalTime closingTime) {
-        this.weeklySchedule = new HashMap<>();
+        this (openingTime, closingTime, new ScheduleCalendar(SCHEDULE_DIRECTORY));
+    }
+
+    public ScheduleManager (LocalTime openingTime, LocalTime closingTime, ScheduleCalendar calendar) {
+        this.auditoriums = new TreeMap<>();
+        this.calendar = calendar;
         this.openingTime = openingTime;
         this.closingTime = closingTime;
+    }
 
-        for (DayOfWeek day : DayOfWeek.values()) {
-            weeklySchedule.put(day, new ArrayList<>());
+// AUDITORIUMS -------------------------------------------------------------------------------
+
+    public void addAuditorium (Auditorium auditorium) {
+        if (auditoriums.containsKey(auditorium.getId())) {
+            throw new IllegalArgumentException("An auditorium with ID " + auditorium.getId() + " already exists.");
         }
+        auditoriums.put(auditorium.getId(), auditorium);
+    }
+
+    public Optional <Auditorium> findAuditoriumById (int auditoriumId) {
+        return Optional.ofNullable(auditoriums.get(auditoriumId));
+    }
+
+    public List <Auditorium> getAuditoriums () {
+        return new ArrayList<>(auditoriums.values());
+    }
+
+// OPENING HOURS -----------------------------------------------------------------------------
+
+    public LocalTime getOpeningTime() {
+        return openingTime;
+    }
+
+    public LocalTime getClosingTime() {
+        return closingTime;
     }
 
-    public Showtime createShowtime (DayOfWeek day, Duration movieDuration) {
+    public LocalDateTime getOpeningOn (LocalDate date) {
+        return date.atTime(openingTime);
+    }
+
+    public LocalDateTime getClosingOn (LocalDate date) {
+        return closingTime.isAfter(openingTime) ? date.atTime(closingTime) : date.plusDays(1).atTime(closingTime);
+    }
+
+    public Showtime createShowtime (Auditorium auditorium, LocalDate date, Movie movie) {
         try {
-            // Ask the user for the start time
-            LocalTime startTime = ConsoleUtil.readTime("Enter start time");
+            // Ask the user for the start time; before opening time means after midnight when the cinema closes late
+            LocalTime time = ConsoleUtil.readTime("Enter start time");
+            LocalDateTime startTime = date.atTime(time);
+            if (time.isBefore(openingTime) && !closingTime.isAfter(openingTime)) {
+                startTime = startTime.plusDays(1);
+            }
 
             // Validate that the time is within opening and closing hours
-            if (startTime.isBefore(openingTime) || startTime.isAfter(closingTime)) {
+            if (startTime.isBefore(getOpeningOn(date)) || startTime.isAfter(getClosingOn(date))) {
                 throw new IllegalArgumentException("Start time must be between " + openingTime + " and " + closingTime);
             }
 
             // Create the showtime
-            Showtime newShowtime = new Showtime(startTime, movieDuration);
+            Showtime newShowtime = new Showtime(movie.getId(), auditorium, startTime, movie.getDuration());
 
             // Validate that the showtime does not exceed closing time
-            if (newShowtime.getEndTime().isAfter(closingTime)) {
+            if (newShowtime.getEndTime().isAfter(getClosingOn(date))) {
                 throw new IllegalArgumentException("The showtime ends after closing time: " + closingTime);
             }
 
-            // Validate that the showtime does not overlap with existing ones
-            List <Showtime> dayShowtimes = getShowtimesForDay(day);
-            for (Showtime existing : dayShowtimes) {
-                if (overlaps(existing, newShowtime)) {
-                    System.out.println("This showtime overlaps with an existing one.");
-                    return null;
-                }
+            // Validate that the showtime does not overlap with existing ones in the same auditorium
+            if (findOverlapping(auditorium.getId(), newShowtime.getStartTime(), newShowtime.getEndTime()).isPresent()) {
+                System.out.println("This showtime overlaps with an existing one in " + auditorium.getName() + ".");
+                return null;
             }
 
             System.out.println("Showtime successfully created: " +
-                    newShowtime.getStartTime() + " - " + newShowtime.getEndTime());
+                    newShowtime.getStartTime().toLocalTime() + " - " + newShowtime.getEndTime().toLocalTime());
             return newShowtime;
 
         } catch (Exception e) {
@@ -62,44 +109,142 @@ public final class ScheduleManager {
         }
     }
 
-// ADD A NEW SHOWTIME TO A SPECIFIC DAY ------------------------------------------------------
+// ADD A NEW SHOWTIME TO ITS AUDITORIUM AND DATE ---------------------------------------------
+
+    public boolean addShowtime (Showtime newShowtime) {
+        if (findOverlapping(newShowtime.getAuditoriumId(), newShowtime.getStartTime(), newShowtime.getEndTime()).isPresent()) {
+            System.out.println("This showtime overlaps with an existing one.");
+            return false;
+        }
+        return calendar.getDay(newShowtime.getDate()).add(newShowtime);
+    }
 
-    public void addShowtime (DayOfWeek day, Showtime newShowtime) {
-        List <Showtime> dayShowtimes = getShowtimesForDay(day);
-        dayShowtimes.add(newShowtime);
+    public boolean removeShowtime (Showtime showtime) {
+        return calendar.getDay(showtime.getDate()).remove(showtime);
     }
 
 // CHECK IF TWO SHOWTIMES OVERLAP ------------------------------------------------------------
 
     public boolean overlaps (Showtime s1, Showtime s2) {
-        LocalTime start1 = s1.getStartTime();
-        LocalTime end1 = s1.getEndTime();
-        LocalTime start2 = s2.getStartTime();
-        LocalTime end2 = s2.getEndTime();
+        LocalDateTime start1 = s1.getStartTime();
+        LocalDateTime end1 = s1.getEndTime();
+        LocalDateTime start2 = s2.getStartTime();
+        LocalDateTime end2 = s2.getEndTime();
+
+        return s1.getAuditoriumId() == s2.getAuditoriumId() && start1.isBefore(end2) && start2.isBefore(end1);
+    }
+
+// FIND SHOWTIMES ----------------------------------------------------------------------------
+
+    // The date is part of the ID, so only that day is loaded.
+    public Optional <Showtime> findShowtimeById (String showtimeId) {
+        return calendar.getDay(Showtime.dateOfId(showtimeId)).findById(showtimeId);
+    }
+
+    // Across every auditorium, sorted by start time.
+    public List <Showtime> findShowtimesForMovie (int movieId, LocalDate date) {
+        return calendar.getDay(date).findByMovie(movieId);
+    }
+
+    // At most one showtime can be running on each screen; late ones from the previous date are included.
+    public List <Showtime> findShowtimesAt (LocalDateTime time) {
+        List <Showtime> running = new ArrayList<>();
+        for (LocalDate date = time.toLocalDate().minusDays(1); !date.isAfter(time.toLocalDate()); date = date.plusDays(1)) {
+            for (Timeline timeline : calendar.getDay(date).getTimelines()) {
+                timeline.findRunningAt(time).ifPresent(running::add);
+            }
+        }
+        return running;
+    }
+
+    // Every showtime of the auditorium running at some point in [from, to), sorted by start time.
+    public List <Showtime> findShowtimesBetween (int auditoriumId, LocalDateTime from, LocalDateTime to) {
+        List <Showtime> showtimes = new ArrayList<>();
+        for (LocalDate date = from.toLocalDate().minusDays(1); !date.isAfter(to.toLocalDate()); date = date.plusDays(1)) {
+            calendar.getDay(date).findTimeline(auditoriumId).ifPresent(t -> showtimes.addAll(t.findBetween(from, to)));
+        }
+        return showtimes;
+    }
+
+// GET SHOWTIMES FOR A SPECIFIC DATE ---------------------------------------------------------
+
+    // Sorted by start time.
+    public List <Showtime> getShowtimesForDay (int auditoriumId, LocalDate date) {
+        return calendar.getDay(date).findTimeline(auditoriumId).map(Timeline::findAll).orElse(List.of());
+    }
+
+    // Every auditorium, sorted by start time.
+    public List <Showtime> getShowtimesForDay (LocalDate date) {
+        return calendar.getDay(date).findAll();
+    }
+
+// FIND THE NEXT FREE SLOT OF A GIVEN LENGTH -------------------------------------------------
 
-        return start1.isBefore(end2) && start2.isBefore(end1);
+    // Earliest start from opening time where a movie of this length, cleaning included, fits before closing.
+    public Optional <LocalDateTime> findNextFreeSlot (int auditoriumId, LocalDate date, Duration movieDuration) {
+        return findNextFreeSlot(auditoriumId, date, movieDuration, getOpeningOn(date));
     }
 
-// GET SHOWTIMES FOR A SPECIFIC DAY ----------------------------------------------------------
+    public Optional <LocalDateTime> findNextFreeSlot (int auditoriumId, LocalDate date, Duration movieDuration, LocalDateTime from) {
+        Duration length = movieDuration.plus(Showtime.DEFAULT_CLEANING_DURATION);
+        LocalDateTime closing = getClosingOn(date);
+        LocalDateTime candidate = from.isBefore(getOpeningOn(date)) ? getOpeningOn(date) : from;
 
-    public List <Showtime> getShowtimesForDay(DayOfWeek day) {
-        return weeklySchedule.get(day);
+        for (Showtime showtime : findShowtimesBetween(auditoriumId, candidate, closing)) {
+            if (!candidate.plus(length).isAfter(showtime.getStartTime())) break;
+            if (showtime.getEndTime().isAfter(candidate)) candidate = showtime.getEndTime();
+        }
+        return candidate.plus(length).isAfter(closing) ? Optional.empty() : Optional.of(candidate);
     }
 
-// LIST SHOWTIMES FOR A SELECTED DAY ---------------------------------------------------------
+// LIST SHOWTIMES FOR A SELECTED DATE --------------------------------------------------------
 
     public void listShowtimes() {
-        DayOfWeek selectedDay = ConsoleUtil.readEnum(DayOfWeek.class, "Select the day to display showtimes");
+        LocalDate selectedDate = ConsoleUtil.readDate("Select the date to display showtimes");
+        DaySchedule day = calendar.getDay(selectedDate);
+
+        boolean anyShowtime = false;
+        for (Auditorium auditorium : auditoriums.values()) {
+            List <Showtime> showtimes = day.findTimeline(auditorium.getId()).map(Timeline::findAll).orElse(List.of());
+            if (showtimes.isEmpty()) continue;
 
-        List <Showtime> showtimes = getShowtimesForDay(selectedDay);
-        if (showtimes.isEmpty()) {
-            System.out.println("No showtimes scheduled for " + ConsoleUtil.formatEnumName(selectedDay.name()) + ".");
-        } else {
+            anyShowtime = true;
+            System.out.println("\n" + auditorium.getName() + ":");
             int count = 1;
             for (Showtime showtime : showtimes) {
                 System.out.println("Showtime " + count++ + ": " + showtime);
             }
         }
+        if (!anyShowtime) {
+            System.out.println("No showtimes scheduled for " + selectedDate + ".");
+        }
+    }
+
+// SAVING AND ARCHIVING ----------------------------------------------------------------------
+
+    // Writes the days before today to disk and drops them from memory. Returns how many days were archived.
+    public int archivePastDays () {
+        return calendar.archiveBefore(LocalDate.now());
+    }
+
+    public void saveSchedule () {
+        calendar.flush();
+    }
+
+// HELPERS -----------------------------------------------------------------------------------
+
+    private Optional <Showtime> findOverlapping (int auditoriumId, LocalDateTime start, LocalDateTime end) {
+        if (!auditoriums.containsKey(auditoriumId)) {
+            throw new IllegalArgumentException("No auditorium with ID " + auditoriumId + ".");
+        }
+        for (LocalDate date = start.toLocalDate().minusDays(1); !date.isAfter(end.toLocalDate()); date = date.plusDays(1)) {
+            Optional <Showtime> overlapping = calendar.getDay(date).findTimeline(auditoriumId)
+                    .flatMap(t -> t.findOverlapping(start, end));
+            if (overlapping.isPresent()) {
+                return overlapping;
+            }
+        }
+        return Optional.empty();
     }
 
 }
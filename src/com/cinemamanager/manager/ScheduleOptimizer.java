@@ -0,0 +1,289 @@
+package com.cinemamanager.manager;
+
+import com.cinemamanager.model.cine.Auditorium;
+import com.cinemamanager.model.cine.Movie;
+import com.cinemamanager.model.cine.Showtime;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Fills the free time of every auditorium for seven consecutive dates with showtimes of the movies now showing.
+// A showtime is worth demand weight x seats x hours of movie, and each further showing of the same movie on the
+// same day is worth a bit less, so popular movies get more screens without pushing everything else out.
+// Every worker thread runs randomised greedy passes until the time budget runs out and the best day plans win.
+// The search works on plain minute offsets; Showtime objects are only built for the winning plan.
+public final class ScheduleOptimizer {
+    private static final Duration DEFAULT_TIME_BUDGET = Duration.ofSeconds(2);
+    private static final int DAYS_PER_WEEK = 7;
+    private static final int SLOT_MINUTES = 5;
+    private static final double REPEAT_DECAY = 0.8;
+    private static final double GREEDY_PICK_PROBABILITY = 0.7;
+    private static final int RANDOM_PICK_CANDIDATES = 3;
+
+    private final ScheduleManager scheduleManager;
+    private final Duration timeBudget;
+    private final int parallelism;
+
+    public ScheduleOptimizer (ScheduleManager scheduleManager) {
+        this (scheduleManager, DEFAULT_TIME_BUDGET, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ScheduleOptimizer (ScheduleManager scheduleManager, Duration timeBudget, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The optimizer needs at least one thread.");
+        }
+        this.scheduleManager = scheduleManager;
+        this.timeBudget = timeBudget;
+        this.parallelism = parallelism;
+    }
+
+    // Plans the NOW_SHOWING movies and adds the result to the schedule. Returns how many showtimes were added.
+    // Movies without a weight count as 1.
+    public int scheduleWeek (MovieManager movieManager, LocalDate firstDay, Map <Integer, Double> demandWeights) {
+        int added = 0;
+        for (Showtime showtime : planWeek(firstDay, movieManager.getMovieListings(), demandWeights)) {
+            if (scheduleManager.addShowtime(showtime)) added++;
+        }
+        return added;
+    }
+
+    // Showtimes that fit around what is already scheduled, without adding them.
+    public List <Showtime> planWeek (LocalDate firstDay, List <Movie> movies, Map <Integer, Double> demandWeights) {
+        List <Movie> candidates = movies.stream()
+                .filter(m -> m.getDuration() != null && !m.getDuration().isZero())
+                .toList();
+        List <Auditorium> auditoriums = scheduleManager.getAuditoriums();
+        if (candidates.isEmpty() || auditoriums.isEmpty()) {
+            return List.of();
+        }
+
+        Problem[] problems = new Problem[DAYS_PER_WEEK];
+        for (int d = 0; d < DAYS_PER_WEEK; d++) {
+            LocalDate date = firstDay.plusDays(d);
+            int[][] windows = new int[auditoriums.size()][];
+            for (int a = 0; a < auditoriums.size(); a++) {
+                windows[a] = freeWindows(auditoriums.get(a), date);
+            }
+            problems[d] = new Problem(date, candidates, demandWeights, auditoriums, windows);
+        }
+
+        DayPlan[] best = search(problems);
+
+        List <Showtime> showtimes = new ArrayList<>();
+        for (int d = 0; d < problems.length; d++) {
+            DayPlan plan = best[d];
+            LocalDateTime opening = scheduleManager.getOpeningOn(problems[d].date);
+            for (int i = 0; i < plan.size; i++) {
+                Movie movie = candidates.get(plan.movies[i]);
+                showtimes.add(new Showtime(movie.getId(), auditoriums.get(plan.auditoriums[i]), opening.plusMinutes(plan.starts[i]), movie.getDuration()));
+            }
+        }
+        return showtimes;
+    }
+
+    // Free time of an auditorium as start, end pairs in minutes from opening time, around what is already scheduled.
+    // Starts are rounded up to the slot grid.
+    private int[] freeWindows (Auditorium auditorium, LocalDate date) {
+        LocalDateTime openingTime = scheduleManager.getOpeningOn(date);
+        LocalDateTime closingTime = scheduleManager.getClosingOn(date);
+        int closing = (int) Duration.between(openingTime, closingTime).toMinutes();
+        int[] windows = new int[8];
+        int count = 0;
+        int cursor = 0;
+
+        List <Showtime> scheduled = new ArrayList<>(scheduleManager.findShowtimesBetween(auditorium.getId(), openingTime, closingTime));
+        scheduled.add(null);
+        for (Showtime showtime : scheduled) {
+            int start = showtime == null ? closing : (int) Math.max(0, Duration.between(openingTime, showtime.getStartTime()).toMinutes());
+            int windowStart = (int) roundUpToSlot(cursor);
+            if (Math.min(start, closing) > windowStart) {
+                if (count + 2 > windows.length) windows = Arrays.copyOf(windows, windows.length * 2);
+                windows[count++] = windowStart;
+                windows[count++] = Math.min(start, closing);
+            }
+            if (showtime != null) {
+                cursor = Math.max(cursor, (int) Duration.between(openingTime, showtime.getEndTime()).toMinutes());
+            }
+        }
+        return Arrays.copyOf(windows, count);
+    }
+
+    // Search:
+    private DayPlan[] search (Problem[] problems) {
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "schedule-optimizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List <Callable <DayPlan[]>> tasks = new ArrayList<>();
+        for (int w = 0; w < parallelism; w++) {
+            long seed = w;
+            tasks.add(() -> searchUntil(problems, deadline, seed));
+        }
+
+        DayPlan[] best = new DayPlan[problems.length];
+        try {
+            for (Future <DayPlan[]> result : workers.invokeAll(tasks)) {
+                DayPlan[] plans = result.get();
+                for (int d = 0; d < plans.length; d++) {
+                    if (best[d] == null || plans[d].score > best[d].score) {
+                        best[d] = plans[d];
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Schedule optimization was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Schedule optimization failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return best;
+    }
+
+    // The first pass of worker 0 is the plain greedy plan, so even a zero budget gives a usable schedule.
+    private static DayPlan[] searchUntil (Problem[] problems, long deadline, long seed) {
+        Random random = new Random(seed);
+        DayPlan[] best = new DayPlan[problems.length];
+        boolean firstPass = true;
+
+        while (firstPass || System.nanoTime() < deadline) {
+            for (int d = 0; d < problems.length; d++) {
+                DayPlan plan = problems[d].greedy(firstPass && seed == 0 ? null : random);
+                if (best[d] == null || plan.score > best[d].score) {
+                    best[d] = plan;
+                }
+            }
+            firstPass = false;
+        }
+        return best;
+    }
+
+    // One day: free windows per auditorium and what each movie is worth. Read-only once built.
+    private static final class Problem {
+        private final LocalDate date;
+        private final int[] lengths;
+        private final double[] valuePerSeat;
+        private final int[] capacities;
+        private final int[][] windows;
+
+        private Problem (LocalDate date, List <Movie> movies, Map <Integer, Double> demandWeights, List <Auditorium> auditoriums, int[][] windows) {
+            this.date = date;
+            this.lengths = new int[movies.size()];
+            this.valuePerSeat = new double[movies.size()];
+            for (int m = 0; m < movies.size(); m++) {
+                Movie movie = movies.get(m);
+                long minutes = movie.getDuration().plus(Showtime.DEFAULT_CLEANING_DURATION).toMinutes();
+                lengths[m] = (int) roundUpToSlot(minutes);
+                double weight = demandWeights.getOrDefault(movie.getId(), 1.0);
+                valuePerSeat[m] = weight * movie.getDuration().toMinutes() / 60.0;
+            }
+
+            this.capacities = new int[auditoriums.size()];
+            for (int a = 0; a < auditoriums.size(); a++) {
+                capacities[a] = auditoriums.get(a).getCapacity();
+            }
+            this.windows = windows;
+        }
+
+        // Always fills the auditorium that frees up first. Without a random source it takes the showtime with
+        // the best value per minute; with one it sometimes takes one of the next best instead.
+        private DayPlan greedy (Random random) {
+            int auditoriumCount = capacities.length;
+            int[] window = new int[auditoriumCount];
+            int[] time = new int[auditoriumCount];
+            for (int a = 0; a < auditoriumCount; a++) {
+                time[a] = windows[a].length > 0 ? windows[a][0] : Integer.MAX_VALUE;
+            }
+            int[] showings = new int[lengths.length];
+            DayPlan plan = new DayPlan();
+            double[] scores = new double[lengths.length];
+
+            while (true) {
+                int a = -1;
+                for (int i = 0; i < auditoriumCount; i++) {
+                    if (time[i] != Integer.MAX_VALUE && (a == -1 || time[i] < time[a])) a = i;
+                }
+                if (a == -1) break;
+
+                int windowEnd = windows[a][window[a] * 2 + 1];
+                int movie = pick(scores, showings, capacities[a], windowEnd - time[a], random);
+                if (movie == -1) {
+                    // Nothing fits in what is left of this window; move on to the next one.
+                    window[a]++;
+                    time[a] = window[a] * 2 < windows[a].length ? windows[a][window[a] * 2] : Integer.MAX_VALUE;
+                    continue;
+                }
+
+                plan.add(a, movie, time[a], value(movie, showings[movie], capacities[a]));
+                showings[movie]++;
+                time[a] += lengths[movie];
+            }
+            return plan;
+        }
+
+        private int pick (double[] scores, int[] showings, int capacity, int minutesLeft, Random random) {
+            int best = -1;
+            int fitting = 0;
+            for (int m = 0; m < lengths.length; m++) {
+                if (lengths[m] > minutesLeft) {
+                    scores[m] = -1;
+                    continue;
+                }
+                scores[m] = value(m, showings[m], capacity) / lengths[m];
+                fitting++;
+                if (best == -1 || scores[m] > scores[best]) best = m;
+            }
+            if (best == -1 || random == null || fitting == 1 || random.nextDouble() < GREEDY_PICK_PROBABILITY) {
+                return best;
+            }
+
+            // One of the next best candidates, found by repeatedly taking the best one not yet passed over.
+            int skip = 1 + random.nextInt(Math.min(RANDOM_PICK_CANDIDATES, fitting - 1));
+            for (int s = 0; s < skip; s++) {
+                scores[best] = -1;
+                best = -1;
+                for (int m = 0; m < lengths.length; m++) {
+                    if (scores[m] >= 0 && (best == -1 || scores[m] > scores[best])) best = m;
+                }
+            }
+            return best;
+        }
+
+        private double value (int movie, int previousShowings, int capacity) {
+            return valuePerSeat[movie] * capacity * Math.pow(REPEAT_DECAY, previousShowings);
+        }
+    }
+
+    private static final class DayPlan {
+        private int[] auditoriums = new int[16];
+        private int[] movies = new int[16];
+        private int[] starts = new int[16];
+        private int size;
+        private double score;
+
+        private void add (int auditorium, int movie, int start, double value) {
+            if (size == starts.length) {
+                auditoriums = Arrays.copyOf(auditoriums, size * 2);
+                movies = Arrays.copyOf(movies, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+            }
+            auditoriums[size] = auditorium;
+            movies[size] = movie;
+            starts[size] = start;
+            size++;
+            score += value;
+        }
+    }
+
+    private static long roundUpToSlot (long minutes) {
+        return (minutes + SLOT_MINUTES - 1) / SLOT_MINUTES * SLOT_MINUTES;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.cinemamanager.manager;
+
+import com.cinemamanager.model.cine.SeatMap;
+import com.cinemamanager.model.cine.SeatRequest;
+
+import java.util.Optional;
+
+// Picks the best block of adjacent seats for a group. Rows whose cached longest free run is shorter than the
+// party are skipped without looking at their seats, so a nearly full auditorium costs one check per row.
+public final class SeatAllocator {
+
+    // Centred requests aim for the row two thirds of the way back; one row off costs as much as this many columns.
+    private static final int ROW_WEIGHT = 2;
+
+    // The seat numbers of the best block, or empty if no row in range has room for the whole party.
+    public Optional <int[]> findBestBlock (SeatMap seatMap, SeatRequest request) {
+        int partySize = request.getPartySize();
+        if (partySize > seatMap.getSeatsPerRow()) {
+            return Optional.empty();
+        }
+
+        int firstRow = request.getMinRow();
+        int lastRow = Math.min(request.getMaxRow(), seatMap.getRows() - 1);
+        int idealColumn = (seatMap.getSeatsPerRow() - partySize) / 2;
+        int idealRow = (seatMap.getRows() * 2) / 3;
+
+        long bestCost = Long.MAX_VALUE;
+        int bestRow = -1;
+        int bestColumn = -1;
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            if (seatMap.longestFreeRun(row) < partySize) continue;
+
+            for (int[] run : seatMap.freeRuns(row)) {
+                if (run[1] < partySize) continue;
+
+                int column = bestColumnInRun(seatMap, request, row, run[0], run[1], idealColumn);
+                if (column == -1) continue;
+
+                long cost = request.isPreferCentre()
+                        ? (long) Math.abs(column - idealColumn) + (long) ROW_WEIGHT * Math.abs(row - idealRow)
+                        : (long) row * seatMap.getSeatsPerRow() + column;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestRow = row;
+                    bestColumn = column;
+                }
+            }
+            // Front to back, the first fitting block is already the answer.
+            if (!request.isPreferCentre() && bestRow != -1) break;
+        }
+
+        if (bestRow == -1) {
+            return Optional.empty();
+        }
+        int[] seats = new int[partySize];
+        for (int i = 0; i < partySize; i++) {
+            seats[i] = seatMap.seatNumber(bestRow, bestColumn + i);
+        }
+        return Optional.of(seats);
+    }
+
+    // Start column inside a free run, closest to the ideal one (or leftmost), with enough accessible seats.
+    private int bestColumnInRun (SeatMap seatMap, SeatRequest request, int row, int runStart, int runLength, int idealColumn) {
+        int partySize = request.getPartySize();
+        int lastStart = runStart + runLength - partySize;
+
+        if (request.getAccessibleSeatsNeeded() == 0) {
+            return request.isPreferCentre() ? Math.max(runStart, Math.min(idealColumn, lastStart)) : runStart;
+        }
+
+        // Sliding window over the run counting accessible seats.
+        int accessible = seatMap.accessibleCountInRow(row, runStart, partySize);
+        int best = -1;
+        for (int start = runStart; start <= lastStart; start++) {
+            if (start > runStart) {
+                if (seatMap.isAccessible(seatMap.seatNumber(row, start - 1))) accessible--;
+                if (seatMap.isAccessible(seatMap.seatNumber(row, start + partySize - 1))) accessible++;
+            }
+            if (accessible < request.getAccessibleSeatsNeeded()) continue;
+            if (!request.isPreferCentre()) return start;
+            if (best == -1 || Math.abs(start - idealColumn) < Math.abs(best - idealColumn)) {
+                best = start;
+            }
+        }
+        return best;
+    }
+
+}
@@ -1,44 +1,60 @@
 package com.cinemamanager.manager;
 
 import com.cinemamanager.model.cine.Seat;
+import com.cinemamanager.model.cine.SeatMap;
 
-import java.util.ArrayList;
 import java.util.Optional;
 
 public final class SeatManager {
+    // Null when seats are only sold directly, without holds.
+    private final ReservationManager reservationManager;
 
-    public Optional <Seat> findSeatByNumber (ArrayList <Seat> seats, int number) {
-        return seats.stream()
-                .filter(seat -> seat.getNumber() == number)
-                .findFirst();
+    public SeatManager () {
+        this (null);
     }
 
-    public void occupySeat (ArrayList <Seat> seats, int number) {
-        findSeatByNumber (seats, number).ifPresentOrElse(
-                seat -> {
-                    if (seat.isOccupied()) {
-                        System.out.println("Error: the seat is already occupied.");
-                    } else {
-                        seat.setOccupied(true);
-                        System.out.println("Seat " + number + " has been occupied.");
-                    }
-                },
-                () -> System.out.println("Error: seat not found.")
-        );
+    public SeatManager (ReservationManager reservationManager) {
+        this.reservationManager = reservationManager;
     }
 
-    public void freeSeat (ArrayList <Seat> seats, int number) {
-        findSeatByNumber(seats, number).ifPresentOrElse(
-                seat -> {
-                    if (!seat.isOccupied()) {
-                        System.out.println("Error: the seat is already free.");
-                    } else {
-                        seat.setOccupied(false);
-                        System.out.println("Seat " + number + " has been freed.");
-                    }
-                },
-                () -> System.out.println("Error: seat not found.")
-        );
+    public Optional <Seat> findSeatByNumber (SeatMap seatMap, int number) {
+        if (!seatMap.isValidSeat(number)) {
+            return Optional.empty();
+        }
+        Seat seat = new Seat(number);
+        seat.setOccupied(seatMap.isOccupied(number));
+        return Optional.of(seat);
+    }
+
+    public boolean occupySeat (SeatMap seatMap, int number) {
+        if (!seatMap.isValidSeat(number)) {
+            System.out.println("Error: seat not found.");
+            return false;
+        }
+        if (!seatMap.occupy(number)) {
+            System.out.println("Error: the seat is already occupied.");
+            return false;
+        }
+        System.out.println("Seat " + number + " has been occupied.");
+        return true;
+    }
+
+    public boolean freeSeat (SeatMap seatMap, int number) {
+        if (!seatMap.isValidSeat(number)) {
+            System.out.println("Error: seat not found.");
+            return false;
+        }
+        // A held seat is given back by releasing or expiring its hold, never one seat at a time.
+        if (reservationManager != null && reservationManager.isHeld(seatMap, number)) {
+            System.out.println("Error: the seat is held by a pending reservation.");
+            return false;
+        }
+        if (!seatMap.free(number)) {
+            System.out.println("Error: the seat is already free.");
+            return false;
+        }
+        System.out.println("Seat " + number + " has been freed.");
+        return true;
     }
 
 }
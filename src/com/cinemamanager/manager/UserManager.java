@@ -1,30 +1,56 @@
 package com.cinemamanager.manager;
 import com.cinemamanager.enums.CollectionType;
 import com.cinemamanager.enums.Role;
+import com.cinemamanager.enums.SnapshotFormat;
 import com.cinemamanager.exception.DuplicateElementException;
 import com.cinemamanager.exception.UserNotFoundException;
+import com.cinemamanager.iface.ISnapshotSerializer;
 import com.cinemamanager.model.people.Account;
 import com.cinemamanager.model.people.PersonalData;
 import com.cinemamanager.model.people.User;
 import com.cinemamanager.util.*;
-import com.google.gson.reflect.TypeToken;
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public final class UserManager {
     private final StorageManager <Integer, User> userStorageManager;
+    private final JournalStore <Integer, User> userJournal;
+    private final WriteBehindPersister <Integer, User> userPersister;
     private static final String USER_FILE_PATH = "user.json";
+    private static final String USER_BINARY_FILE_PATH = "user.bin";
+    private static final String USER_JOURNAL_PATH = "user.journal";
+    private static final String USER_QUARANTINE_PATH = "user.quarantine.json";
+    private static final String NICKNAME_INDEX = "nickname";
+    private static final String NATIONAL_ID_INDEX = "nationalId";
+    private static final String EMAIL_INDEX = "email";
+    private static final String PHONE_NUMBER_INDEX = "phoneNumber";
+    // Listings are in ID order, paged through a sorted index of the IDs.
+    private static final String ID_INDEX = "id";
+    private static final int LIST_PAGE_SIZE = 10;
     private int nextId;
+    // Quarantined IDs are never handed out again, so those users can still be restored.
+    private int maxQuarantinedId;
 
     public UserManager () {
+        this (SnapshotFormat.JSON);
+    }
+
+    public UserManager (SnapshotFormat snapshotFormat) {
         this.userStorageManager = new StorageManager<>(CollectionType.HASH_MAP);
+        ISnapshotSerializer <User> json = new JsonSnapshotSerializer<>(USER_FILE_PATH, User.class, User::getId);
+        ISnapshotSerializer <User> binary = new BinarySnapshotSerializer<>(USER_BINARY_FILE_PATH, BinaryUtil.USER);
+        this.userJournal = new JournalStore<>(USER_JOURNAL_PATH, Integer.class, User.class, userStorageManager::view,
+                snapshotFormat == SnapshotFormat.BINARY ? List.of(binary, json) : List.of(json, binary));
+        this.userPersister = new WriteBehindPersister<>(userJournal);
+        createIndexes();
         loadFromFile();
 
-        OptionalInt maxId = userStorageManager.findAll().stream()
+        OptionalInt maxId = userStorageManager.stream()
                 .mapToInt(User :: getId)
                 .max();
-        this.nextId = maxId.isPresent() ? maxId.getAsInt() +1 : 1;
+        this.nextId = Math.max(maxId.isPresent() ? maxId.getAsInt() +1 : 1, maxQuarantinedId + 1);
     }
 
     public void addUser () {
@@ -32,7 +58,7 @@ public final class UserManager {
         try {
             userStorageManager.add(newUser, false);
             nextId++;
-            saveToFile();
+            saveToFile(newUser);
             System.out.println("\nUser created successfully!\n");
         } catch (DuplicateElementException e) {
             System.out.println("Error adding the user: " + e.getMessage());
@@ -41,17 +67,19 @@ public final class UserManager {
 
     public void deleteUserById (int id) {
         userStorageManager.delete(id);
-        saveToFile();
+        if (userStorageManager.findById(id).isEmpty()) {
+            userPersister.markDeleted(id);
+        }
     }
 
     public void deactivateUser (User userToDeactivate) {
         userToDeactivate.getAccount().deactivate();
-        saveToFile();
+        saveToFile(userToDeactivate);
     }
 
     public void reactivateUser (User userToReactivate) {
         userToReactivate.getAccount().activate();
-        saveToFile();
+        saveToFile(userToReactivate);
     }
 
     public void grantPrivileges (User userToGrantPermissions) {
@@ -68,7 +96,7 @@ public final class UserManager {
         }
         accountToGrantPermissions.setRole(Role.ADMIN);
         System.out.println("Permissions granted successfully.");
-        saveToFile();
+        saveToFile(userToGrantPermissions);
     }
 
     public void revokePrivileges (User userToRevokePermissions) {
@@ -85,25 +113,49 @@ public final class UserManager {
         }
         accountToRevokePermissions.setRole(Role.EMPLOYEE);
         System.out.println("Permissions revoked successfully.");
-        saveToFile();
+        saveToFile(userToRevokePermissions);
     }
 
     public User findUserById (int id) throws UserNotFoundException{
         return userStorageManager.findById(id).orElseThrow(() -> new UserNotFoundException("User with ID: " + id + " not found."));
     }
 
+    public Optional <User> findUserByNickname (String nickname) {
+        List <User> matches = userStorageManager.findByIndex(NICKNAME_INDEX, nickname);
+        return matches.isEmpty() ? Optional.empty() : Optional.of(matches.get(0));
+    }
+
+    // One index lookup plus one hash verification. Passwords stored in an older format or with a different
+    // work factor are rehashed once they have been verified.
+    public Optional <User> authenticate (String nickname, String password) {
+        Optional <User> user = findUserByNickname(nickname);
+        if (user.isEmpty()) {
+            PasswordUtil.verifyDummy(password);
+            return Optional.empty();
+        }
+
+        Account account = user.get().getAccount();
+        if (!account.checkPassword(password)) {
+            return Optional.empty();
+        }
+        if (account.passwordNeedsRehash()) {
+            account.setPassword(password);
+            saveToFile(user.get());
+        }
+        return user;
+    }
+
     public List <User> findAllUsers () {
         return userStorageManager.findAll();
     }
 
-    public void showList (List <User> userList) {
-        for (User user : userList) {
-            System.out.println(user);
-        }
+    // Paged by ID, LIST_PAGE_SIZE users at a time.
+    public void showList (Collection <User> userList) {
+        ConsoleUtil.showPaged(Page.pager(userList, ID_INDEX, User::getId, LIST_PAGE_SIZE), System.out::println);
     }
 
     public void showAllUsers () {
-        showList (findAllUsers());
+        ConsoleUtil.showPaged(cursor -> userStorageManager.findPage(ID_INDEX, User::getId, LIST_PAGE_SIZE, cursor), System.out::println);
     }
 
     public void forcePasswordChange (User user) {
@@ -119,16 +171,17 @@ public final class UserManager {
 
         user.getAccount().setPassword(newPassword);
         user.getAccount().setMustChangePassword(false);
-        saveToFile();
+        saveToFile(user);
         System.out.println("\nPassword updated successfully.\n");
     }
 
     public void forcePersonalDataChange (User user) {
-        String nationalId = ConsoleUtil.readValidNationalId ("new national ID");
+        String nationalId = ConsoleUtil.readUniqueNationalId (this);
         user.getPersonalData().setId(nationalId);
+        userStorageManager.reindex(user);
         changeAll (user);
         user.getPersonalData().setMustCompleteProfile(false);
-        saveToFile();
+        saveToFile(user);
         System.out.println("\nPersonal data updated successfully.\n");
     }
 
@@ -167,23 +220,19 @@ public final class UserManager {
     }
 
     public boolean nickNameAlreadyExists(String newNickName) {
-        Optional<User> userWithNickName = userStorageManager.findFirstBy(u -> u.getAccount().getNickname().equals(newNickName));
-        return userWithNickName.isPresent();
+        return findUserByNickname(newNickName).isPresent();
     }
 
     public boolean nationalIdAlreadyExists(String newNationalId) {
-        Optional<User> userWithNationalId = userStorageManager.findFirstBy(u -> u.getPersonalData().getId().equals(newNationalId));
-        return userWithNationalId.isPresent();
+        return !userStorageManager.findByIndex(NATIONAL_ID_INDEX, newNationalId).isEmpty();
     }
 
     public boolean emailAlreadyExists(String newEmail) {
-        Optional<User> userWithEmail = userStorageManager.findFirstBy(u -> u.getPersonalData().getEmail().equals(newEmail));
-        return userWithEmail.isPresent();
+        return !userStorageManager.findByIndex(EMAIL_INDEX, newEmail).isEmpty();
     }
 
     public boolean phoneNumberAlreadyExists(String newPhoneNumber) {
-        Optional<User> userWithPhoneNumber = userStorageManager.findFirstBy(u -> u.getPersonalData().getPhoneNumber().equals(newPhoneNumber));
-        return userWithPhoneNumber.isPresent();
+        return !userStorageManager.findByIndex(PHONE_NUMBER_INDEX, newPhoneNumber).isEmpty();
     }
 
     private void updateAccountData(User userToUpdate) {
@@ -210,8 +259,9 @@ public final class UserManager {
             System.out.println("The nickname is already in use.");
         } else {
             userToUpdate.getAccount().setNickname(newNickname);
+            userStorageManager.reindex(userToUpdate);
             System.out.println("Nickname successfully changed to: " + newNickname);
-            saveToFile();
+            saveToFile(userToUpdate);
         }
     }
 
@@ -221,11 +271,11 @@ public final class UserManager {
             if (input.equalsIgnoreCase("ESC")) {
                 break;
             }
-            if (input.equals(userToUpdate.getAccount().getPassword())) {
+            if (userToUpdate.getAccount().checkPassword(input)) {
                 String newPassword = ConsoleUtil.readValidPassword("new password");
                 userToUpdate.getAccount().setPassword(newPassword);
                 System.out.println("Password successfully changed.");
-                saveToFile();
+                saveToFile(userToUpdate);
                 break;
             } else {
                 System.out.println("Incorrect password. Please try again.");
@@ -261,7 +311,7 @@ public final class UserManager {
         userToUpdate.getPersonalData().setName(newFirstName);
         userToUpdate.getPersonalData().setLastName(newLastName);
         System.out.println("Full name successfully changed.\n");
-        saveToFile();
+        saveToFile(userToUpdate);
     }
 
     private void changeEmail (User userToUpdate) {
@@ -271,8 +321,9 @@ public final class UserManager {
         }
         else {
             userToUpdate.getPersonalData().setEmail(newEmail);
+            userStorageManager.reindex(userToUpdate);
             System.out.println("Email successfully changed.\n");
-            saveToFile();
+            saveToFile(userToUpdate);
         }
     }
 
@@ -283,8 +334,9 @@ public final class UserManager {
         }
         else {
             userToUpdate.getPersonalData().setPhoneNumber(newPhoneNumber);
+            userStorageManager.reindex(userToUpdate);
             System.out.println("Phone number successfully changed.\n");
-            saveToFile();
+            saveToFile(userToUpdate);
         }
     }
 
@@ -294,27 +346,66 @@ public final class UserManager {
         changePhoneNumber(userToUpdate);
     }
 
+    private void createIndexes () {
+        userStorageManager.addUniqueIndex(NICKNAME_INDEX, u -> u.getAccount().getNickname());
+        userStorageManager.addUniqueIndex(NATIONAL_ID_INDEX, u -> u.getPersonalData().getId());
+        userStorageManager.addUniqueIndex(EMAIL_INDEX, u -> u.getPersonalData().getEmail());
+        userStorageManager.addUniqueIndex(PHONE_NUMBER_INDEX, u -> u.getPersonalData().getPhoneNumber());
+        userStorageManager.addSortedIndex(ID_INDEX, User::getId);
+    }
+
     private void loadFromFile () {
-        Type type = new TypeToken <Map <Integer, User> >() {}.getType();
-        Map<Integer, User> loaded = JsonUtil.read(USER_FILE_PATH, type, HashMap::new);
         userStorageManager.clear();
-        for (User u : loaded.values()) {
+        List <User> conflicting = new ArrayList<>();
+        userJournal.load(u -> {
             try {
                 userStorageManager.add(u, true);
-            } catch (DuplicateElementException ignored) {}
-        }
+            } catch (DuplicateElementException e) {
+                System.err.println("User with ID " + u.getId() + " conflicts with another user and is moved to "
+                        + USER_QUARANTINE_PATH + ": " + e.getMessage());
+                conflicting.add(u);
+            }
+        });
+        quarantine(conflicting);
 
-        if (userStorageManager.findAll().isEmpty()) {
+        if (userStorageManager.isEmpty()) {
             createDefaultFounderUser();
-            saveToFile();
         }
 
     }
 
-    private void saveToFile () {
-        Map<Integer, User> map = userStorageManager.findAll().stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
-        JsonUtil.write(USER_FILE_PATH, map);
+    // Users that break a unique index (older data files may hold e.g. repeated national IDs) cannot be loaded, and
+    // the next compaction would leave them out of the snapshot. They are kept in a file of their own instead, merged
+    // with any quarantined before, and startup stops if that file cannot be read or written.
+    private void quarantine (List <User> conflicting) {
+        Map <Integer, User> quarantined = new LinkedHashMap<>();
+        boolean readable = JsonUtil.<User>readEach(USER_QUARANTINE_PATH, User.class, u -> quarantined.put(u.getId(), u));
+        if (!readable && Files.exists(Path.of(USER_QUARANTINE_PATH))) {
+            throw new IllegalStateException ("Could not read " + USER_QUARANTINE_PATH + "; fix or move it before starting.");
+        }
+        for (User user : conflicting) {
+            quarantined.put(user.getId(), user);
+        }
+        maxQuarantinedId = quarantined.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        if (conflicting.isEmpty()) return;
+
+        try {
+            JsonUtil.writeArray(USER_QUARANTINE_PATH, quarantined.values());
+        } catch (IOException e) {
+            throw new IllegalStateException ("Could not save " + conflicting.size() + " conflicting user(s) to "
+                    + USER_QUARANTINE_PATH + "; not starting so they are not lost: " + e.getMessage(), e);
+        }
+        System.err.println(conflicting.size() + " user(s) could not be loaded and were saved to " + USER_QUARANTINE_PATH + ".");
+    }
+
+    // Writes every queued change now and syncs it. Called before the program exits; throws if they could not be saved.
+    public void flush () throws IOException {
+        userPersister.flush();
+    }
+
+    // Queued and written in the background; see flush().
+    private void saveToFile (User user) {
+        userPersister.markDirty(user);
     }
 
     private void createDefaultFounderUser() {
@@ -326,6 +417,7 @@ public final class UserManager {
 
         try {
             userStorageManager.add(founder, true);
+            saveToFile(founder);
             System.out.println("\nDefault founder account created. Please log in with:");
             System.out.println("Nickname: founder");
             System.out.println("Password: founder123\n");
@@ -0,0 +1,71 @@
+package com.cinemamanager.model.cine;
+
+import com.cinemamanager.iface.Identifiable;
+
+import java.util.Arrays;
+
+public final class Auditorium implements Identifiable <Integer> {
+
+    private final int auditoriumId;
+    private String name;
+    private final int rows;
+    private final int seatsPerRow;
+    private final int[] accessibleSeats;
+
+    public Auditorium (int auditoriumId, String name, int rows, int seatsPerRow, int... accessibleSeats) {
+        this.auditoriumId = auditoriumId;
+        this.name = name;
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.accessibleSeats = accessibleSeats.clone();
+    }
+
+    @Override
+    public Integer getId() {
+        return auditoriumId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public int getCapacity() {
+        return rows * seatsPerRow;
+    }
+
+    public int[] getAccessibleSeats() {
+        return accessibleSeats.clone();
+    }
+
+    // Every showtime sells its own copy of the layout.
+    public SeatMap createSeatMap() {
+        SeatMap seatMap = new SeatMap(rows, seatsPerRow);
+        for (int seat : accessibleSeats) {
+            seatMap.markAccessible(seat);
+        }
+        return seatMap;
+    }
+
+    @Override
+    public String toString() {
+        return  "--------------------------\n" +
+                "Auditorium ID: " + auditoriumId + ".\n" +
+                "Name: " + name + ".\n" +
+                "Rows: " + rows + ".\n" +
+                "Seats per row: " + seatsPerRow + ".\n" +
+                "Accessible seats: " + Arrays.toString(accessibleSeats) + ".\n";
+    }
+
+}
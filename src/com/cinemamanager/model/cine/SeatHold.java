@@ -0,0 +1,76 @@
+package com.cinemamanager.model.cine;
+
+import com.cinemamanager.enums.HoldStatus;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class SeatHold {
+
+    private final String holdId;
+    private final SeatMap seatMap;
+    private final int[] seats;
+    private final Instant expiresAt;
+    private final AtomicReference <HoldStatus> status;
+
+    public SeatHold (SeatMap seatMap, int[] seats, Instant expiresAt) {
+        this.holdId = UUID.randomUUID().toString();
+        this.seatMap = seatMap;
+        this.seats = seats.clone();
+        this.expiresAt = expiresAt;
+        this.status = new AtomicReference<>(HoldStatus.HELD);
+        seatMap.holdStarted();
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public SeatMap getSeatMap() {
+        return seatMap;
+    }
+
+    public int[] getSeats() {
+        return seats.clone();
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public HoldStatus getStatus() {
+        return status.get();
+    }
+
+    public boolean contains (int seat) {
+        for (int held : seats) {
+            if (held == seat) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Only one transition out of HELD can ever win, so confirming and expiring cannot both happen.
+    public boolean transition (HoldStatus from, HoldStatus to) {
+        if (!status.compareAndSet(from, to)) {
+            return false;
+        }
+        if (from == HoldStatus.HELD && to != HoldStatus.HELD) {
+            seatMap.holdEnded();
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return  "--------------------------\n" +
+                "Hold: " + holdId + ".\n" +
+                "Seats: " + Arrays.toString(seats) + ".\n" +
+                "Status: " + status.get() + ".\n" +
+                "Expires at: " + expiresAt + ".\n";
+    }
+
+}
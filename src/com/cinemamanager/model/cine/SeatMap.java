@@ -0,0 +1,443 @@
+package com.cinemamanager.model.cine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Occupancy of one auditorium as a bitset: one bit per seat, set when the seat is taken.
+// Each row starts on its own 64-bit word so row queries never have to mask a neighbouring row.
+// Seats are numbered from 1 in row-major order, matching Seat numbers.
+// Words are updated with compare-and-set, so several terminals can claim seats without locking.
+public final class SeatMap {
+
+    private final int rows;
+    private final int seatsPerRow;
+    private final int wordsPerRow;
+    private final long lastWordMask;
+    private final AtomicLongArray occupied;
+    private final long[] accessible;
+    // Longest free run per row, kept up to date by every change: the changing thread bumps the row version,
+    // rescans the row (a few words) and stores the length tagged with that version. When two changes race,
+    // the entry with the newer version wins, and its scan started after every earlier change had landed.
+    private final AtomicIntegerArray rowVersions;
+    private final AtomicLongArray longestFreeRuns;
+    private final AtomicInteger activeHolds = new AtomicInteger();
+
+    public SeatMap (int rows, int seatsPerRow) {
+        if (rows < 1 || seatsPerRow < 1) {
+            throw new IllegalArgumentException("An auditorium needs at least one row and one seat per row.");
+        }
+        this.rows = rows;
+        this.seatsPerRow = seatsPerRow;
+        this.wordsPerRow = (seatsPerRow + 63) >>> 6;
+        int tailBits = seatsPerRow & 63;
+        this.lastWordMask = tailBits == 0 ? -1L : (1L << tailBits) - 1;
+        this.occupied = new AtomicLongArray(rows * wordsPerRow);
+        this.accessible = new long[rows * wordsPerRow];
+        this.rowVersions = new AtomicIntegerArray(rows);
+        this.longestFreeRuns = new AtomicLongArray(rows);
+        for (int row = 0; row < rows; row++) {
+            longestFreeRuns.set(row, cacheEntry(0, seatsPerRow));
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public int getCapacity() {
+        return rows * seatsPerRow;
+    }
+
+    // Seat numbering:
+
+    public boolean isValidSeat (int number) {
+        return number >= 1 && number <= getCapacity();
+    }
+
+    public int seatNumber (int row, int column) {
+        checkRow(row);
+        if (column < 0 || column >= seatsPerRow) {
+            throw new IllegalArgumentException("Column " + column + " is outside the row.");
+        }
+        return row * seatsPerRow + column + 1;
+    }
+
+    public int rowOf (int number) {
+        checkSeat(number);
+        return (number - 1) / seatsPerRow;
+    }
+
+    public int columnOf (int number) {
+        checkSeat(number);
+        return (number - 1) % seatsPerRow;
+    }
+
+    // Single seats, O(1):
+
+    public boolean isOccupied (int number) {
+        int bit = bitIndex(number);
+        return (occupied.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    // Returns false if the seat was already taken.
+    public boolean occupy (int number) {
+        int bit = bitIndex(number);
+        return setBits(bit >>> 6, 1L << bit);
+    }
+
+    // Returns false if the seat was already free.
+    public boolean free (int number) {
+        int bit = bitIndex(number);
+        return clearBits(bit >>> 6, 1L << bit);
+    }
+
+    public void clear () {
+        for (int i = 0; i < occupied.length(); i++) {
+            occupied.set(i, 0L);
+            rowChanged(i);
+        }
+    }
+
+    // Grows by one on every change to any seat. A stored copy is outdated once the count moved on.
+    public long changeCount () {
+        long total = 0;
+        for (int row = 0; row < rows; row++) {
+            total += rowVersions.get(row);
+        }
+        return total;
+    }
+
+    // Holds:
+    // Seat holds that are still pending on this map. Kept by SeatHold as it is created and leaves HELD.
+    public boolean hasActiveHolds () {
+        return activeHolds.get() > 0;
+    }
+
+    void holdStarted () {
+        activeHolds.incrementAndGet();
+    }
+
+    void holdEnded () {
+        activeHolds.decrementAndGet();
+    }
+
+    // Accessibility is part of the auditorium layout and is set up before the map is shared.
+    public void markAccessible (int number) {
+        int bit = bitIndex(number);
+        accessible[bit >>> 6] |= 1L << bit;
+    }
+
+    public boolean isAccessible (int number) {
+        int bit = bitIndex(number);
+        return (accessible[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    // Accessible seats among `count` seats of a row starting at a column.
+    public int accessibleCountInRow (int row, int column, int count) {
+        int total = 0;
+        for (int c = column; c < column + count; c++) {
+            if (isAccessible(seatNumber(row, c))) total++;
+        }
+        return total;
+    }
+
+    // Seat groups:
+
+    // Takes every seat or none. Words are claimed in ascending order; if one of the seats turns out to be
+    // taken, the words already claimed are given back before returning false.
+    public boolean occupyAll (int... numbers) {
+        long[] masks = groupByWord(numbers);
+        for (int word = 0; word < masks.length; word++) {
+            if (masks[word] == 0) continue;
+            if (!setBits(word, masks[word])) {
+                for (int claimed = 0; claimed < word; claimed++) {
+                    if (masks[claimed] != 0) clearBits(claimed, masks[claimed]);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Frees every seat of a group previously taken with occupyAll.
+    public void freeAll (int... numbers) {
+        long[] masks = groupByWord(numbers);
+        for (int word = 0; word < masks.length; word++) {
+            if (masks[word] == 0) continue;
+            long mask = masks[word];
+            occupied.getAndUpdate(word, current -> current & ~mask);
+            rowChanged(word);
+        }
+    }
+
+    // Seat numbers with their bit set, ascending. Used to store the map and rebuild it with occupyAll.
+    public int[] occupiedSeats () {
+        long[] words = new long[occupied.length()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = occupied.get(i);
+        }
+        return seatsOf(words);
+    }
+
+    public int[] accessibleSeats () {
+        return seatsOf(accessible);
+    }
+
+    // Counts:
+
+    public int occupiedCount () {
+        int count = 0;
+        for (int i = 0; i < occupied.length(); i++) {
+            count += Long.bitCount(occupied.get(i));
+        }
+        return count;
+    }
+
+    public int freeCount () {
+        return getCapacity() - occupiedCount();
+    }
+
+    public int occupiedCountInRow (int row) {
+        checkRow(row);
+        int count = 0;
+        int start = row * wordsPerRow;
+        for (int i = start; i < start + wordsPerRow; i++) {
+            count += Long.bitCount(occupied.get(i));
+        }
+        return count;
+    }
+
+    public int freeCountInRow (int row) {
+        return seatsPerRow - occupiedCountInRow(row);
+    }
+
+    // Contiguous blocks:
+
+    // Number of the first seat of the leftmost block of `count` free seats in the row, or -1 if there is none.
+    // Works a 64-seat word at a time: a run carried over from the previous words is completed with the
+    // trailing free seats of the next one, and runs inside a word are found by and-ing the word with shifted copies.
+    public int findContiguousFree (int row, int count) {
+        checkRow(row);
+        if (count < 1 || count > seatsPerRow) return -1;
+
+        int base = row * wordsPerRow;
+        int run = 0;
+        int runStart = 0;
+
+        for (int w = 0; w < wordsPerRow; w++) {
+            long free = freeBits(base + w, w);
+            int wordStart = w << 6;
+
+            int trailingFree = Long.numberOfTrailingZeros(~free);
+            if (run > 0 && run + trailingFree >= count) {
+                return seatNumber(row, runStart);
+            }
+
+            if (count <= 64) {
+                long starts = runStarts(free, count);
+                if (starts != 0) {
+                    return seatNumber(row, wordStart + Long.numberOfTrailingZeros(starts));
+                }
+            }
+
+            if (free == -1L) {
+                if (run == 0) runStart = wordStart;
+                run += 64;
+                if (run >= count) return seatNumber(row, runStart);
+            } else {
+                int leadingFree = Long.numberOfLeadingZeros(~free);
+                run = leadingFree;
+                runStart = wordStart + 64 - leadingFree;
+            }
+        }
+        return -1;
+    }
+
+    // Length of the longest block of free seats in the row, O(1).
+    public int longestFreeRun (int row) {
+        checkRow(row);
+        return (int) longestFreeRuns.get(row);
+    }
+
+    // Free blocks of the row as {first column, length} pairs, left to right.
+    public int[][] freeRuns (int row) {
+        checkRow(row);
+        int base = row * wordsPerRow;
+        int[][] runs = new int[8][];
+        int count = 0;
+        int runStart = -1;
+
+        for (int w = 0; w < wordsPerRow; w++) {
+            long free = freeBits(base + w, w);
+            int wordStart = w << 6;
+            int position = 0;
+            while (position < 64) {
+                long remaining = position == 0 ? free : free >>> position;
+                if (runStart == -1) {
+                    if (remaining == 0) break;
+                    position += Long.numberOfTrailingZeros(remaining);
+                    runStart = wordStart + position;
+                } else {
+                    int length = Long.numberOfTrailingZeros(~remaining);
+                    if (position + length >= 64) break;
+                    position += length;
+                    if (count == runs.length) runs = Arrays.copyOf(runs, count * 2);
+                    runs[count++] = new int[] {runStart, wordStart + position - runStart};
+                    runStart = -1;
+                }
+            }
+        }
+        if (runStart != -1) {
+            if (count == runs.length) runs = Arrays.copyOf(runs, count + 1);
+            runs[count++] = new int[] {runStart, seatsPerRow - runStart};
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    // First block of `count` free seats scanning rows front to back, or -1.
+    public int findContiguousFree (int count) {
+        for (int row = 0; row < rows; row++) {
+            if (longestFreeRun(row) < count) continue;
+            int seat = findContiguousFree(row, count);
+            if (seat != -1) return seat;
+        }
+        return -1;
+    }
+
+    // Bit i of the result is set when bits i .. i + count - 1 of `bits` are all set.
+    private static long runStarts (long bits, int count) {
+        long result = bits;
+        int covered = 1;
+        while (covered < count && result != 0) {
+            int step = Math.min(covered, count - covered);
+            result &= result >>> step;
+            covered += step;
+        }
+        return result;
+    }
+
+    // Helpers:
+
+    private long freeBits (int wordIndex, int wordInRow) {
+        long free = ~occupied.get(wordIndex);
+        return wordInRow == wordsPerRow - 1 ? free & lastWordMask : free;
+    }
+
+    // Sets all bits of the mask only if none of them is set yet.
+    private boolean setBits (int word, long mask) {
+        while (true) {
+            long current = occupied.get(word);
+            if ((current & mask) != 0) return false;
+            if (occupied.compareAndSet(word, current, current | mask)) {
+                rowChanged(word);
+                return true;
+            }
+        }
+    }
+
+    // Clears all bits of the mask only if all of them are set.
+    private boolean clearBits (int word, long mask) {
+        while (true) {
+            long current = occupied.get(word);
+            if ((current & mask) != mask) return false;
+            if (occupied.compareAndSet(word, current, current & ~mask)) {
+                rowChanged(word);
+                return true;
+            }
+        }
+    }
+
+    private int[] seatsOf (long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        int[] seats = new int[count];
+        int next = 0;
+        for (int i = 0; i < words.length; i++) {
+            int rowStart = (i / wordsPerRow) * seatsPerRow + (i % wordsPerRow) * 64 + 1;
+            for (long bits = words[i]; bits != 0; bits &= bits - 1) {
+                seats[next++] = rowStart + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return seats;
+    }
+
+    private void rowChanged (int word) {
+        int row = word / wordsPerRow;
+        int version = rowVersions.incrementAndGet(row);
+        int longest = scanLongestFreeRun(row);
+        while (true) {
+            long cached = longestFreeRuns.get(row);
+            if (version - (int) (cached >>> 32) <= 0) return;
+            if (longestFreeRuns.compareAndSet(row, cached, cacheEntry(version, longest))) return;
+        }
+    }
+
+    private int scanLongestFreeRun (int row) {
+        int base = row * wordsPerRow;
+        int longest = 0;
+        int current = 0;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long free = freeBits(base + w, w);
+            int width = w == wordsPerRow - 1 ? seatsPerRow - (w << 6) : 64;
+            int position = 0;
+            while (position < width) {
+                long remaining = free >>> position;
+                if ((remaining & 1) != 0) {
+                    int length = Math.min(Long.numberOfTrailingZeros(~remaining), width - position);
+                    current += length;
+                    position += length;
+                    longest = Math.max(longest, current);
+                } else {
+                    position += remaining == 0 ? width - position : Math.min(Long.numberOfTrailingZeros(remaining), width - position);
+                    current = 0;
+                }
+            }
+        }
+        return longest;
+    }
+
+    private static long cacheEntry (int version, int length) {
+        return ((long) version << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    private long[] groupByWord (int... numbers) {
+        long[] masks = new long[occupied.length()];
+        for (int number : numbers) {
+            int bit = bitIndex(number);
+            long mask = 1L << bit;
+            if ((masks[bit >>> 6] & mask) != 0) {
+                throw new IllegalArgumentException("Seat " + number + " appears twice in the group.");
+            }
+            masks[bit >>> 6] |= mask;
+        }
+        return masks;
+    }
+
+    private int bitIndex (int number) {
+        checkSeat(number);
+        int row = (number - 1) / seatsPerRow;
+        int column = (number - 1) % seatsPerRow;
+        return row * (wordsPerRow << 6) + column;
+    }
+
+    private void checkSeat (int number) {
+        if (!isValidSeat(number)) {
+            throw new IllegalArgumentException("Seat " + number + " does not exist.");
+        }
+    }
+
+    private void checkRow (int row) {
+        if (row < 0 || row >= rows) {
+            throw new IllegalArgumentException("Row " + row + " does not exist.");
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.cinemamanager.model.cine;
+
+// What a group asks for when it lets the cinema pick the seats. Rows are 0-based and inclusive.
+public final class SeatRequest {
+
+    private final int partySize;
+    private final boolean preferCentre;
+    private final int minRow;
+    private final int maxRow;
+    private final int accessibleSeatsNeeded;
+
+    public SeatRequest (int partySize) {
+        this (partySize, true, 0, Integer.MAX_VALUE, 0);
+    }
+
+    public SeatRequest (int partySize, boolean preferCentre, int minRow, int maxRow, int accessibleSeatsNeeded) {
+        if (partySize < 1) {
+            throw new IllegalArgumentException("A party needs at least one person.");
+        }
+        if (minRow < 0 || maxRow < minRow) {
+            throw new IllegalArgumentException("Invalid row range: " + minRow + " - " + maxRow + ".");
+        }
+        if (accessibleSeatsNeeded < 0 || accessibleSeatsNeeded > partySize) {
+            throw new IllegalArgumentException("Accessible seats must be between 0 and the party size.");
+        }
+        this.partySize = partySize;
+        this.preferCentre = preferCentre;
+        this.minRow = minRow;
+        this.maxRow = maxRow;
+        this.accessibleSeatsNeeded = accessibleSeatsNeeded;
+    }
+
+    public int getPartySize() {
+        return partySize;
+    }
+
+    public boolean isPreferCentre() {
+        return preferCentre;
+    }
+
+    public int getMinRow() {
+        return minRow;
+    }
+
+    public int getMaxRow() {
+        return maxRow;
+    }
+
+    public int getAccessibleSeatsNeeded() {
+        return accessibleSeatsNeeded;
+    }
+
+    @Override
+    public String toString() {
+        return "Party of " + partySize +
+                (preferCentre ? ", centred" : "") +
+                ", rows " + minRow + " - " + (maxRow == Integer.MAX_VALUE ? "any" : maxRow) +
+                (accessibleSeatsNeeded > 0 ? ", " + accessibleSeatsNeeded + " accessible" : "");
+    }
+}
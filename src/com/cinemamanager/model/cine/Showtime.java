@@ -1,48 +1,94 @@
 package com.cinemamanager.model.cine;
+import com.cinemamanager.iface.Identifiable;
 import java.time.Duration;
-import java.time.LocalTime;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
 
-public final class Showtime {
+// Start and end are full date-times so a late showtime can run past midnight.
+// The ID starts with the date of the showtime, which is what the schedule calendar needs to find it again.
+// Times are fixed: a showtime is stored by its start time, so moving one means removing it and adding a new one.
+public final class Showtime implements Identifiable <String> {
 
-    private Duration cleaningDuration;
-    private LocalTime startTime;
-    private LocalTime endTime;
+    public static final Duration DEFAULT_CLEANING_DURATION = Duration.ofMinutes(30);
 
-    public Showtime(LocalTime startTime, Duration movieDuration) {
-        this.cleaningDuration = Duration.ofMinutes(30);
+    private final String showtimeId;
+    private final int movieId;
+    private final int auditoriumId;
+    private final SeatMap seatMap;
+    private final Duration cleaningDuration;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+
+    public Showtime(int movieId, Auditorium auditorium, LocalDateTime startTime, Duration movieDuration) {
+        this (startTime.toLocalDate() + "/" + UUID.randomUUID(), movieId, auditorium.getId(), auditorium.createSeatMap(),
+                DEFAULT_CLEANING_DURATION, startTime, movieDuration);
+    }
+
+    // Restores a stored showtime with its seats as they were.
+    public Showtime(String showtimeId, int movieId, int auditoriumId, SeatMap seatMap, Duration cleaningDuration, LocalDateTime startTime, Duration movieDuration) {
+        this.showtimeId = showtimeId;
+        this.movieId = movieId;
+        this.auditoriumId = auditoriumId;
+        this.seatMap = seatMap;
+        this.cleaningDuration = cleaningDuration;
         this.startTime = startTime;
         this.endTime = startTime.plus(movieDuration.plus(cleaningDuration));
     }
 
-    public Duration getCleaningDuration() {
-        return cleaningDuration;
+    public static LocalDate dateOfId(String showtimeId) {
+        int separator = showtimeId.indexOf('/');
+        if (separator == -1) {
+            throw new IllegalArgumentException("Not a showtime ID: " + showtimeId);
+        }
+        return LocalDate.parse(showtimeId.substring(0, separator));
     }
 
-    public void setCleaningDuration(Duration cleaningDuration) {
-        this.cleaningDuration = cleaningDuration;
+    @Override
+    public String getId() {
+        return showtimeId;
     }
 
-    public LocalTime getStartTime() {
-        return startTime;
+    public int getMovieId() {
+        return movieId;
     }
 
-    public void setStartTime(LocalTime startTime) {
-        this.startTime = startTime;
+    public int getAuditoriumId() {
+        return auditoriumId;
     }
 
-    public LocalTime getEndTime() {
-        return endTime;
+    public LocalDate getDate() {
+        return startTime.toLocalDate();
     }
 
-    public void setEndTime(LocalTime endTime) {
-        this.endTime = endTime;
+    public SeatMap getSeatMap() {
+        return seatMap;
+    }
+
+    public Duration getMovieDuration() {
+        return Duration.between(startTime, endTime).minus(cleaningDuration);
+    }
+
+    public Duration getCleaningDuration() {
+        return cleaningDuration;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
     }
 
     @Override
     public String toString() {
         return  "--------------------------\n" +
-                "Start time: " + startTime + ".\n" +
-                "End time: " + endTime + ".\n";
+                "Movie ID: " + movieId + ".\n" +
+                "Auditorium ID: " + auditoriumId + ".\n" +
+                "Start time: " + startTime.toLocalTime() + ".\n" +
+                "End time: " + endTime.toLocalTime() + (endTime.toLocalDate().isAfter(getDate()) ? " (next day)" : "") + ".\n" +
+                "Free seats: " + seatMap.freeCount() + ".\n";
     }
 
 }
@@ -1,9 +1,11 @@
 package com.cinemamanager.model.people;
 import com.cinemamanager.enums.Role;
+import com.cinemamanager.util.PasswordUtil;
 
 public final class Account {
 
     private String nickname;
+    // Salted hash, see PasswordUtil; the field keeps its name so existing data files still load.
     private String password;
     private boolean mustChangePassword;
     private boolean enabled;
@@ -11,12 +13,20 @@ public final class Account {
 
     public Account (String nickname, String password, Role role) {
         this.nickname = nickname;
-        this.password = password;
+        this.password = PasswordUtil.hash(password);
         this.enabled = true;
         this.role = role;
         this.mustChangePassword = true;
     }
 
+    public Account (String nickname, String passwordHash, Role role, boolean mustChangePassword, boolean enabled) {
+        this.nickname = nickname;
+        this.password = passwordHash;
+        this.enabled = enabled;
+        this.role = role;
+        this.mustChangePassword = mustChangePassword;
+    }
+
     public String getNickname() {
         return nickname;
     }
@@ -25,12 +35,20 @@ public final class Account {
         this.nickname = nickname;
     }
 
-    public String getPassword() {
+    public String getPasswordHash() {
         return password;
     }
 
     public void setPassword(String password) {
-        this.password = password;
+        this.password = PasswordUtil.hash(password);
+    }
+
+    public boolean checkPassword(String password) {
+        return PasswordUtil.verify(password, this.password);
+    }
+
+    public boolean passwordNeedsRehash() {
+        return PasswordUtil.needsRehash(password);
     }
 
     public boolean isMustChangePassword() {
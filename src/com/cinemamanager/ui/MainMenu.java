@@ -1,11 +1,14 @@
 package com.cinemamanager.ui;
 import com.cinemamanager.auth.LoginService;
+import com.cinemamanager.auth.Session;
 import com.cinemamanager.enums.Role;
 import com.cinemamanager.exception.UserNotFoundException;
 import com.cinemamanager.manager.MovieManager;
 import com.cinemamanager.manager.UserManager;
 import com.cinemamanager.model.people.User;
 import com.cinemamanager.util.ConsoleUtil;
+import java.io.IOException;
+import java.util.Optional;
 import java.util.Set;
 
 public final class MainMenu {
@@ -17,6 +20,8 @@ public final class MainMenu {
         this.userManager = new UserManager();
         this.loginService = new LoginService(userManager);
         this.movieManager = new MovieManager();
+        // Changes are written in the background; make sure the last ones reach the disk however the program ends.
+        Runtime.getRuntime().addShutdownHook(new Thread(this::saveAll, "save-on-exit"));
     }
 
     public void displayMainMenu(){
@@ -39,22 +44,23 @@ public final class MainMenu {
             chosenOption = ConsoleUtil.readOption(prompt, validOptions);
 
             switch (chosenOption) {
-                case "0" -> System.out.println ("\nGoodbye!\n");
+                case "0" -> {
+                    saveAll();
+                    System.out.println ("\nGoodbye!\n");
+                }
                 case "1" -> {
                     String nickname = ConsoleUtil.readInputOrEsc("Please enter the nickname, or type 'ESC' to return to the previous menu: ");
                     if (nickname == null) break;
 
                     String password = ConsoleUtil.readString ("Please enter the password: ");
-                    boolean success = loginService.login(nickname, password);
+                    Optional<Session> session = loginService.login(nickname, password);
 
-                    String message = success
-                            ? "\nWelcome, " + loginService.getActiveUser().getAccount().getNickname() + ".\n"
+                    String message = session.isPresent()
+                            ? "\nWelcome, " + session.get().getUser().getAccount().getNickname() + ".\n"
                             : "Incorrect nickname or password.";
                     System.out.println(message);
 
-                    if (success) {
-                        showLoggedInMenu();
-                    }
+                    session.ifPresent(this::showLoggedInMenu);
                 }
                 case "2" -> {
                     movieManager.showMovieListings();
@@ -64,8 +70,8 @@ public final class MainMenu {
 
     }
 
-    private void showLoggedInMenu() {
-        User activeUser = loginService.getActiveUser();
+    private void showLoggedInMenu(Session session) {
+        User activeUser = session.getUser();
 
         if (activeUser.getPersonalData().isMustCompleteProfile()) {
             System.out.println("You must change your personal data before continuing.\n");
@@ -95,13 +101,18 @@ public final class MainMenu {
             Set<String> validOptions = Set.of("0", "1", "2", "3");
             chosenOption = ConsoleUtil.readOption(prompt, validOptions);
 
+            if (!loginService.isSessionActive(session)) {
+                System.out.println("Your session has expired. Please log in again.");
+                return;
+            }
+
             switch (chosenOption) {
                 case "0" -> {
                     System.out.println("Logging out...");
-                    loginService.logout();
+                    loginService.logout(session);
                 }
                 case "1" -> {
-                    showUserMenu();
+                    showUserMenu(session);
                 }
                 case "2" -> {
                     showCinemaMenu();
@@ -115,8 +126,8 @@ public final class MainMenu {
     }
 
     //Users:
-    private void showUserMenu(){
-        User activeUser = loginService.getActiveUser();
+    private void showUserMenu(Session session){
+        User activeUser = session.getUser();
         Role roleActiveSession = activeUser.getAccount().getRole();
         String chosenOption;
 
@@ -136,7 +147,7 @@ public final class MainMenu {
                     [0] Return to the previous menu.
                     """;
 
-            Set<String> validOptions = Set.of("0", "1", "2", "3", "4", "5");
+            Set<String> validOptions = Set.of("0", "1", "2", "3", "4", "5", "6", "7", "8");
             chosenOption = ConsoleUtil.readOption(prompt, validOptions);
 
             boolean isNotFounder = !roleActiveSession.equals(Role.FOUNDER);
@@ -221,7 +232,7 @@ public final class MainMenu {
                     }
                 }
                 case "6" -> {
-                    userManager.findAllUsers();
+                    userManager.showAllUsers();
                 }
                 case "7" -> {
                     if (isNotFounder) {
@@ -333,6 +344,19 @@ public final class MainMenu {
         }
     }
 
+    private void saveAll () {
+        try {
+            userManager.flush();
+        } catch (IOException e) {
+            System.err.println("Could not save the users: " + e.getMessage());
+        }
+        try {
+            movieManager.flush();
+        } catch (IOException e) {
+            System.err.println("Could not save the movies: " + e.getMessage());
+        }
+    }
+
     //Cinema:
     private void showCinemaMenu (){
 
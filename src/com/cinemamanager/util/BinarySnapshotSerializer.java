@@ -0,0 +1,59 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.IBinaryCodec;
+import com.cinemamanager.iface.ISnapshotSerializer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+public final class BinarySnapshotSerializer <E> implements ISnapshotSerializer <E> {
+
+    // Attributes:
+    private final String path;
+    private final IBinaryCodec <E> codec;
+
+    // Constructor:
+    public BinarySnapshotSerializer (String path, IBinaryCodec <E> codec) {
+        this.path = path;
+        this.codec = codec;
+    }
+
+    @Override
+    public String getPath () {
+        return path;
+    }
+
+    @Override
+    public boolean read (String path, Consumer <E> consumer) {
+        Path file = Path.of(path);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (BinaryUtil.Input in = BinaryUtil.openInput(file)) {
+            while (in.readBoolean()) {
+                consumer.accept(codec.read(in));
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // Corrupt data can also fail inside a codec, e.g. as an invalid date.
+            System.err.println("Error reading file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void write (String path, Iterable <E> elements) throws IOException {
+        DurableFiles.replace(Path.of(path), stream -> {
+            BinaryUtil.Output out = BinaryUtil.openOutput(stream);
+            for (E element : elements) {
+                out.writeBoolean(true);
+                codec.write(out, element);
+            }
+            out.writeBoolean(false);
+            out.flush();
+        });
+    }
+
+}
@@ -0,0 +1,359 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.enums.*;
+import com.cinemamanager.iface.IBinaryCodec;
+import com.cinemamanager.model.cine.Movie;
+import com.cinemamanager.model.cine.SeatMap;
+import com.cinemamanager.model.cine.Showtime;
+import com.cinemamanager.model.people.Account;
+import com.cinemamanager.model.people.PersonalData;
+import com.cinemamanager.model.people.User;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class BinaryUtil {
+
+    // Bumped whenever a codec changes its layout or an enum used by one is reordered.
+    private static final int MAGIC = 0x434D4231; // "CMB1"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static final IBinaryCodec <Account> ACCOUNT = new AccountCodec();
+    public static final IBinaryCodec <PersonalData> PERSONAL_DATA = new PersonalDataCodec();
+    public static final IBinaryCodec <User> USER = new UserCodec();
+    public static final IBinaryCodec <Movie> MOVIE = new MovieCodec();
+    public static final IBinaryCodec <Showtime> SHOWTIME = new ShowtimeCodec();
+
+    // Files are written through DurableFiles, which hands over an already buffered stream.
+    public static Output openOutput (OutputStream stream) throws IOException {
+        Output out = new Output(stream);
+        out.data.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+        return out;
+    }
+
+    public static Input openInput (Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        Input in = new Input(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        if (in.data.readInt() != MAGIC) {
+            in.close();
+            throw new IOException("Not a binary snapshot: " + file);
+        }
+        int version = in.readVarInt();
+        if (version != VERSION) {
+            in.close();
+            throw new IOException("Unsupported binary snapshot version " + version + ": " + file);
+        }
+        return in;
+    }
+
+    // Single records, without the file header. Strings are only shared within one record.
+    static Output recordOutput (OutputStream stream) {
+        return new Output(stream);
+    }
+
+    static Input recordInput (InputStream stream) {
+        return new Input(stream);
+    }
+
+    // Output:
+    // Strings are written once and referred to by their position afterwards, enums as ordinals and durations as seconds.
+    public static final class Output implements Closeable, Flushable {
+        private final DataOutputStream data;
+        private final Map <String, Integer> strings = new HashMap<>();
+
+        private Output (OutputStream stream) {
+            this.data = new DataOutputStream(stream);
+        }
+
+        public void writeBoolean (boolean value) throws IOException {
+            data.writeBoolean(value);
+        }
+
+        public void writeVarInt (int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                data.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data.writeByte(value);
+        }
+
+        public void writeVarLong (long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                data.writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data.writeByte((int) value);
+        }
+
+        // 0 = null, 1 = new string follows, n = string number n - 2 already written.
+        public void writeString (String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer ref = strings.get(value);
+            if (ref != null) {
+                writeVarInt(ref + 2);
+                return;
+            }
+            strings.put(value, strings.size());
+            writeVarInt(1);
+            data.writeUTF(value);
+        }
+
+        public void writeEnum (Enum <?> value) throws IOException {
+            writeVarInt(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        public void writeDuration (Duration value) throws IOException {
+            writeBoolean(value != null);
+            if (value != null) {
+                // Zig-zag encoded so a negative duration does not take ten bytes.
+                long seconds = value.getSeconds();
+                writeVarLong((seconds << 1) ^ (seconds >> 63));
+            }
+        }
+
+        @Override
+        public void flush () throws IOException {
+            data.flush();
+        }
+
+        @Override
+        public void close () throws IOException {
+            data.close();
+        }
+    }
+
+    // Input:
+    public static final class Input implements Closeable {
+        private final DataInputStream data;
+        private final List <String> strings = new ArrayList<>();
+
+        private Input (InputStream stream) {
+            this.data = new DataInputStream(stream);
+        }
+
+        public boolean readBoolean () throws IOException {
+            return data.readBoolean();
+        }
+
+        public int readVarInt () throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = data.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed variable-length int.");
+        }
+
+        public long readVarLong () throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = data.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed variable-length long.");
+        }
+
+        public String readString () throws IOException {
+            int ref = readVarInt();
+            if (ref == 0) return null;
+            if (ref == 1) {
+                String value = data.readUTF();
+                strings.add(value);
+                return value;
+            }
+            if (ref < 0 || ref - 2 >= strings.size()) {
+                throw new IOException("String reference " + (ref - 2) + " points past the " + strings.size() + " strings read so far.");
+            }
+            return strings.get(ref - 2);
+        }
+
+        public <T extends Enum <T>> T readEnum (Class <T> enumClass) throws IOException {
+            int ordinal = readVarInt();
+            if (ordinal == 0) return null;
+            T[] constants = enumClass.getEnumConstants();
+            if (ordinal > constants.length) {
+                throw new IOException("Unknown " + enumClass.getSimpleName() + " ordinal: " + (ordinal - 1));
+            }
+            return constants[ordinal - 1];
+        }
+
+        public Duration readDuration () throws IOException {
+            if (!readBoolean()) return null;
+            long zigZag = readVarLong();
+            return Duration.ofSeconds((zigZag >>> 1) ^ -(zigZag & 1));
+        }
+
+        @Override
+        public void close () throws IOException {
+            data.close();
+        }
+    }
+
+    // Codecs:
+    private static class AccountCodec implements IBinaryCodec <Account> {
+        @Override
+        public void write (Output out, Account account) throws IOException {
+            out.writeString(account.getNickname());
+            out.writeString(account.getPasswordHash());
+            out.writeBoolean(account.isMustChangePassword());
+            out.writeBoolean(account.isActive());
+            out.writeEnum(account.getRole());
+        }
+
+        @Override
+        public Account read (Input in) throws IOException {
+            String nickname = in.readString();
+            String passwordHash = in.readString();
+            boolean mustChangePassword = in.readBoolean();
+            boolean enabled = in.readBoolean();
+            Role role = in.readEnum(Role.class);
+            return new Account(nickname, passwordHash, role, mustChangePassword, enabled);
+        }
+    }
+
+    private static class PersonalDataCodec implements IBinaryCodec <PersonalData> {
+        @Override
+        public void write (Output out, PersonalData personalData) throws IOException {
+            out.writeString(personalData.getId());
+            out.writeString(personalData.getName());
+            out.writeString(personalData.getLastName());
+            out.writeString(personalData.getEmail());
+            out.writeString(personalData.getPhoneNumber());
+            out.writeBoolean(personalData.isMustCompleteProfile());
+        }
+
+        @Override
+        public PersonalData read (Input in) throws IOException {
+            return new PersonalData(in.readString(), in.readString(), in.readString(), in.readString(), in.readString(), in.readBoolean());
+        }
+    }
+
+    private static class UserCodec implements IBinaryCodec <User> {
+        @Override
+        public void write (Output out, User user) throws IOException {
+            out.writeVarInt(user.getId());
+            ACCOUNT.write(out, user.getAccount());
+            PERSONAL_DATA.write(out, user.getPersonalData());
+        }
+
+        @Override
+        public User read (Input in) throws IOException {
+            int userId = in.readVarInt();
+            Account account = ACCOUNT.read(in);
+            PersonalData personalData = PERSONAL_DATA.read(in);
+            return new User(userId, account, personalData);
+        }
+    }
+
+    private static class MovieCodec implements IBinaryCodec <Movie> {
+        @Override
+        public void write (Output out, Movie movie) throws IOException {
+            out.writeVarInt(movie.getId());
+            out.writeString(movie.getTitle());
+            out.writeEnum(movie.getAudio());
+            out.writeEnum(movie.getSubtitles());
+            out.writeDuration(movie.getDuration());
+            out.writeString(movie.getProducer());
+            out.writeString(movie.getDirector());
+            out.writeVarInt(movie.getReleaseYear());
+            out.writeEnum(movie.getCountry());
+            out.writeEnum(movie.getAgeRating());
+            out.writeEnum(movie.getGenre());
+            out.writeEnum(movie.getStatus());
+        }
+
+        @Override
+        public Movie read (Input in) throws IOException {
+            int movieId = in.readVarInt();
+            String title = in.readString();
+            Language audio = in.readEnum(Language.class);
+            Language subtitles = in.readEnum(Language.class);
+            Duration duration = in.readDuration();
+            String producer = in.readString();
+            String director = in.readString();
+            int releaseYear = in.readVarInt();
+            Country country = in.readEnum(Country.class);
+            AgeRating ageRating = in.readEnum(AgeRating.class);
+            MovieGenre genre = in.readEnum(MovieGenre.class);
+            MovieStatus status = in.readEnum(MovieStatus.class);
+            return new Movie(movieId, title, audio, subtitles, duration, producer, director, releaseYear, country, ageRating, genre, status);
+        }
+    }
+
+    // The seat map is stored with the showtime, so a showtime read back from an archive still knows which seats were sold.
+    // Seat numbers are ascending and written as gaps from the previous one.
+    private static class ShowtimeCodec implements IBinaryCodec <Showtime> {
+        @Override
+        public void write (Output out, Showtime showtime) throws IOException {
+            out.writeString(showtime.getId());
+            out.writeVarInt(showtime.getMovieId());
+            out.writeVarInt(showtime.getAuditoriumId());
+            out.writeVarLong(showtime.getStartTime().toLocalDate().toEpochDay());
+            out.writeVarInt(showtime.getStartTime().toLocalTime().toSecondOfDay());
+            out.writeDuration(showtime.getMovieDuration());
+            out.writeDuration(showtime.getCleaningDuration());
+
+            SeatMap seatMap = showtime.getSeatMap();
+            out.writeVarInt(seatMap.getRows());
+            out.writeVarInt(seatMap.getSeatsPerRow());
+            writeSeats(out, seatMap.accessibleSeats());
+            writeSeats(out, seatMap.occupiedSeats());
+        }
+
+        @Override
+        public Showtime read (Input in) throws IOException {
+            String showtimeId = in.readString();
+            int movieId = in.readVarInt();
+            int auditoriumId = in.readVarInt();
+            LocalDate date = LocalDate.ofEpochDay(in.readVarLong());
+            LocalTime time = LocalTime.ofSecondOfDay(in.readVarInt());
+            Duration movieDuration = in.readDuration();
+            Duration cleaningDuration = in.readDuration();
+
+            SeatMap seatMap = new SeatMap(in.readVarInt(), in.readVarInt());
+            for (int seat : readSeats(in)) {
+                seatMap.markAccessible(seat);
+            }
+            seatMap.occupyAll(readSeats(in));
+            return new Showtime(showtimeId, movieId, auditoriumId, seatMap, cleaningDuration, LocalDateTime.of(date, time), movieDuration);
+        }
+
+        private static void writeSeats (Output out, int[] seats) throws IOException {
+            out.writeVarInt(seats.length);
+            int previous = 0;
+            for (int seat : seats) {
+                out.writeVarInt(seat - previous);
+                previous = seat;
+            }
+        }
+
+        private static int[] readSeats (Input in) throws IOException {
+            int[] seats = new int[in.readVarInt()];
+            int previous = 0;
+            for (int i = 0; i < seats.length; i++) {
+                previous += in.readVarInt();
+                seats[i] = previous;
+            }
+            return seats;
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.exception.DuplicateElementException;
+import com.cinemamanager.iface.ICrud;
+import com.cinemamanager.iface.Identifiable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Thread-safe counterpart of StorageManager for stores shared by several sessions.
+// Single-element operations are atomic ConcurrentHashMap operations, so writers to different keys never wait on
+// each other. Multi-element reads (findBy, findAll, findFirstBy) see one consistent state of the store: they run
+// optimistically and retry if a writer overlapped them, and only after repeated conflicts do they hold writers back.
+public final class ConcurrentStorageManager <ID, E extends Identifiable <ID>> implements ICrud <E, ID> {
+
+    private static final int OPTIMISTIC_ATTEMPTS = 8;
+
+    // Attributes:
+    private final ConcurrentHashMap <ID, E> map;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger activeWriters = new AtomicInteger();
+    // Writers share the read side; the write side is only taken by clear() and by readers that keep conflicting.
+    private final ReadWriteLock snapshotGate = new ReentrantReadWriteLock();
+
+    // Constructor:
+    public ConcurrentStorageManager () {
+        this.map = new ConcurrentHashMap<>();
+    }
+
+    public ConcurrentStorageManager (int expectedSize) {
+        this.map = new ConcurrentHashMap<>(expectedSize);
+    }
+
+    // Clear collection:
+    public void clear () {
+        snapshotGate.writeLock().lock();
+        try {
+            map.clear();
+            version.incrementAndGet();
+        } finally {
+            snapshotGate.writeLock().unlock();
+        }
+    }
+
+    // CRUD methods:
+    @Override
+    public void add (E element, boolean duplicatesAllowed) throws DuplicateElementException {
+        ID key = element.getId();
+        if (!duplicatesAllowed) {
+            E existing = write(() -> map.putIfAbsent(key, element));
+            if (existing != null) {
+                throw new DuplicateElementException (true);
+            }
+            return;
+        }
+
+        if (map.containsKey(key)) {
+            boolean confirm = ConsoleUtil.confirm("Warning: the key already exists in the map. This will overwrite the existing value.");
+            if (!confirm) return;
+        }
+        write(() -> map.put(key, element));
+    }
+
+    @Override
+    public Optional <E> findById (ID id) {
+        return Optional.ofNullable(map.get(id));
+    }
+
+    @Override
+    public Optional <E> findFirstBy (Predicate <E> condition) {
+        return readConsistently(() -> map.values().stream()
+                .filter(condition)
+                .findFirst());
+    }
+
+    @Override
+    public List <E> findBy (Predicate <E> condition) {
+        return readConsistently(() -> map.values().stream()
+                .filter(condition)
+                .toList());
+    }
+
+    @Override
+    public List <E> findAll () {
+        return readConsistently(() -> new ArrayList<>(map.values()));
+    }
+
+    // Views and streams are weakly consistent: unlike findAll they may see some of a concurrent change.
+    @Override
+    public int size () {
+        return map.size();
+    }
+
+    @Override
+    public Collection <E> view () {
+        return Collections.unmodifiableCollection(map.values());
+    }
+
+    @Override
+    public Stream <E> stream () {
+        return map.values().stream();
+    }
+
+    @Override
+    public void update (E element) throws IllegalArgumentException {
+        write(() -> map.put(element.getId(), element));
+        System.out.println("Element updated successfully!");
+    }
+
+    // Applies a change to the stored element atomically with respect to every other operation on the store.
+    public boolean modify (ID id, Consumer <E> mutator) {
+        E modified = write(() -> map.computeIfPresent(id, (key, element) -> {
+            mutator.accept(element);
+            return element;
+        }));
+        return modified != null;
+    }
+
+    // The confirmation prompt runs outside any lock; the element is only removed if no other session
+    // replaced or removed it in the meantime.
+    @Override
+    public void delete (ID id) {
+        E element = map.get(id);
+        if (element == null) {
+            System.out.println("No element found with the given ID.");
+            return;
+        }
+
+        String warning = "This operation is irreversible. The following element will be deleted:\n" + element;
+        if (!ConsoleUtil.confirm(warning)) return;
+
+        boolean[] removed = new boolean[1];
+        write(() -> map.computeIfPresent(id, (key, current) -> {
+            removed[0] = current == element;
+            return removed[0] ? null : current;
+        }));
+        System.out.println(removed[0]
+                ? "Element successfully deleted."
+                : "The element was changed by another session in the meantime. Nothing was deleted.");
+    }
+
+    // Concurrency helpers:
+    private <T> T write (Supplier <T> operation) {
+        snapshotGate.readLock().lock();
+        activeWriters.incrementAndGet();
+        try {
+            return operation.get();
+        } finally {
+            version.incrementAndGet();
+            activeWriters.decrementAndGet();
+            snapshotGate.readLock().unlock();
+        }
+    }
+
+    // A read is accepted when no writer was active at its start or end and none finished during it.
+    private <T> T readConsistently (Supplier <T> read) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long versionBefore = version.get();
+            if (activeWriters.get() == 0) {
+                T result = read.get();
+                if (activeWriters.get() == 0 && version.get() == versionBefore) {
+                    return result;
+                }
+            }
+            Thread.onSpinWait();
+        }
+
+        snapshotGate.writeLock().lock();
+        try {
+            return read.get();
+        } finally {
+            snapshotGate.writeLock().unlock();
+        }
+    }
+
+}
@@ -3,12 +3,15 @@ package com.cinemamanager.util;
 import com.cinemamanager.manager.UserManager;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public final class ConsoleUtil {
     private static final Scanner SCANNER = new Scanner(System.in);
@@ -162,6 +165,19 @@ public final class ConsoleUtil {
         }
     }
 
+    public static LocalDate readDate(String prompt) {
+        while (true) {
+            System.out.print(prompt + " (format yyyy-MM-dd): ");
+            String input = SCANNER.nextLine().trim();
+
+            try {
+                return LocalDate.parse(input);
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date format. Please enter in yyyy-MM-dd format.");
+            }
+        }
+    }
+
     // Menu:
 
     public static String readOption(String prompt, Set<String> validOptions) {
@@ -175,6 +191,21 @@ public final class ConsoleUtil {
         } while (true);
     }
 
+    // Prints a listing one page at a time, fetching the next page only when asked for it.
+    public static <E> void showPaged (Function <Page.Cursor, Page <E>> pages, Consumer <E> printer) {
+        Page <E> page = pages.apply(null);
+        if (page.getItems().isEmpty()) {
+            System.out.println("Nothing to show.");
+            return;
+        }
+        while (true) {
+            page.getItems().forEach(printer);
+            if (!page.hasNext()) return;
+            if (readOption("\n[1] Next page.  [0] Stop listing.\n", Set.of("0", "1")).equals("0")) return;
+            page = pages.apply(page.getNextCursor());
+        }
+    }
+
     public static String readInputOrEsc(String prompt) {
         String input = readString(prompt);
 
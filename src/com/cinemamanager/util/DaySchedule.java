@@ -0,0 +1,120 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.model.cine.Showtime;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// The showtimes that start on one date: a timeline per auditorium plus lookups by ID and by movie.
+// Showtimes that start late and end after midnight still belong to the date they start on.
+// Not thread-safe; see ScheduleCalendar.
+public final class DaySchedule {
+
+    // Attributes:
+    private final LocalDate date;
+    private final Map <Integer, Timeline> timelinesByAuditorium = new TreeMap<>();
+    private final Map <String, Showtime> showtimesById = new HashMap<>();
+    private final HashIndex <Integer, String, Showtime> showtimesByMovie = new HashIndex<>(Showtime::getMovieId);
+    private boolean dirty;
+    // Seat changes across the day's showtimes when it was last loaded or saved; sales do not go through add/remove.
+    private long savedSeatChanges;
+
+    // Constructor:
+    public DaySchedule (LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalDate getDate () {
+        return date;
+    }
+
+    // Changes since the day was last loaded or saved, including seats sold or freed on its showtimes.
+    public boolean isDirty () {
+        return dirty || seatChangeCount() != savedSeatChanges;
+    }
+
+    // True while a seat hold is pending on one of the day's showtimes.
+    public boolean hasActiveHolds () {
+        for (Showtime showtime : showtimesById.values()) {
+            if (showtime.getSeatMap().hasActiveHolds()) return true;
+        }
+        return false;
+    }
+
+    long seatChangeCount () {
+        long total = 0;
+        for (Showtime showtime : showtimesById.values()) {
+            total += showtime.getSeatMap().changeCount();
+        }
+        return total;
+    }
+
+    // `seatChanges` is the count read before the day was written, so seats changed during the write keep it dirty.
+    void markClean (long seatChanges) {
+        dirty = false;
+        savedSeatChanges = seatChanges;
+    }
+
+    // Lookup:
+    public Optional <Showtime> findById (String showtimeId) {
+        return Optional.ofNullable(showtimesById.get(showtimeId));
+    }
+
+    // Sorted by start time.
+    public List <Showtime> findByMovie (int movieId) {
+        List <Showtime> showtimes = new ArrayList<>(showtimesByMovie.get(movieId));
+        showtimes.sort(Comparator.comparing(Showtime::getStartTime));
+        return showtimes;
+    }
+
+    // Empty if nothing is scheduled in that auditorium on this date.
+    public Optional <Timeline> findTimeline (int auditoriumId) {
+        return Optional.ofNullable(timelinesByAuditorium.get(auditoriumId));
+    }
+
+    public Collection <Timeline> getTimelines () {
+        return Collections.unmodifiableCollection(timelinesByAuditorium.values());
+    }
+
+    // Sorted by start time.
+    public List <Showtime> findAll () {
+        List <Showtime> showtimes = new ArrayList<>(showtimesById.values());
+        showtimes.sort(Comparator.comparing(Showtime::getStartTime));
+        return showtimes;
+    }
+
+    public int size () {
+        return showtimesById.size();
+    }
+
+    // Changes:
+    // False if the showtime overlaps another one in its auditorium on this date.
+    public boolean add (Showtime showtime) {
+        if (!showtime.getDate().equals(date)) {
+            throw new IllegalArgumentException("The showtime starts on " + showtime.getDate() + ", not on " + date + ".");
+        }
+        Timeline timeline = timelinesByAuditorium.computeIfAbsent(showtime.getAuditoriumId(), id -> new Timeline());
+        if (!timeline.add(showtime)) {
+            return false;
+        }
+        showtimesById.put(showtime.getId(), showtime);
+        showtimesByMovie.insert(showtime);
+        dirty = true;
+        return true;
+    }
+
+    public boolean remove (Showtime showtime) {
+        Timeline timeline = timelinesByAuditorium.get(showtime.getAuditoriumId());
+        if (timeline == null || !timeline.remove(showtime)) {
+            return false;
+        }
+        if (timeline.isEmpty()) {
+            timelinesByAuditorium.remove(showtime.getAuditoriumId());
+        }
+        showtimesById.remove(showtime.getId());
+        showtimesByMovie.remove(showtime);
+        dirty = true;
+        return true;
+    }
+
+}
@@ -0,0 +1,208 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.enums.FsyncPolicy;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// File writes that survive a crash. A file is replaced by writing a temporary file next to it and renaming that
+// over the live one, so readers see either the old content or the new one, never a truncated file.
+// How often data is forced to the disk depends on the policy (system property "cinemamanager.fsync"):
+// ALWAYS syncs every write, and the directory after a rename; BATCHED syncs replaced files before the rename, but
+// appends are synced together in the background every "cinemamanager.fsync.interval" milliseconds, or by
+// syncPending(); NEVER leaves it to the operating system. The rename is atomic under every policy.
+public final class DurableFiles {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String POLICY_PROPERTY = "cinemamanager.fsync";
+    private static final String INTERVAL_PROPERTY = "cinemamanager.fsync.interval";
+    private static final FsyncPolicy DEFAULT_POLICY = FsyncPolicy.BATCHED;
+    private static final long DEFAULT_SYNC_INTERVAL_MILLIS = 1000;
+    private static final long SYNC_INTERVAL_MILLIS = syncIntervalFromProperty();
+
+    private static volatile FsyncPolicy policy = policyFromProperty();
+    private static final Set <Path> unsynced = ConcurrentHashMap.newKeySet();
+    // Held while a pending file is forced and while one is renamed, so a rename never slips in between the
+    // syncer taking a path off the pending set and opening it.
+    private static final Object syncLock = new Object();
+    private static ScheduledExecutorService syncer;
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write (OutputStream out) throws IOException;
+    }
+
+    // Policy:
+    public static FsyncPolicy getPolicy () {
+        return policy;
+    }
+
+    public static void setPolicy (FsyncPolicy policy) {
+        DurableFiles.policy = policy;
+    }
+
+    // Writing:
+    // Writes the content to `target.tmp` and renames it over the target. On failure the target is left untouched,
+    // the temporary file is removed and the error is thrown.
+    public static void replace (Path target, ContentWriter content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        FsyncPolicy current = policy;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeTo(channel, content);
+                if (current != FsyncPolicy.NEVER) {
+                    channel.force(true);
+                }
+            }
+            move(temp, target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (current == FsyncPolicy.ALWAYS) {
+            syncDirectory(target);
+        }
+    }
+
+    // Adds the content at the end of the target, creating it if needed.
+    public static void append (Path target, ContentWriter content) throws IOException {
+        FsyncPolicy current = policy;
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            writeTo(channel, content);
+            if (current == FsyncPolicy.ALWAYS) {
+                channel.force(false);
+            }
+        }
+        if (current == FsyncPolicy.BATCHED) {
+            unsynced.add(target.toAbsolutePath());
+            startSyncer();
+        }
+    }
+
+    // Renames a file atomically. Appends to it that are still waiting for a sync are synced under the new name.
+    public static void rename (Path source, Path target) throws IOException {
+        synchronized (syncLock) {
+            move(source, target);
+            if (unsynced.remove(source.toAbsolutePath())) {
+                unsynced.add(target.toAbsolutePath());
+            }
+        }
+        if (policy == FsyncPolicy.ALWAYS) {
+            syncDirectory(target);
+        }
+    }
+
+    // Forces every file appended to since the last sync to the disk: one fsync per file, however many writes it had.
+    public static void syncPending () throws IOException {
+        IOException failure = null;
+        Iterator <Path> paths = unsynced.iterator();
+        while (paths.hasNext()) {
+            Path path = paths.next();
+            synchronized (syncLock) {
+                if (!unsynced.remove(path)) continue;
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.force(false);
+                } catch (NoSuchFileException e) {
+                    // Deleted since: renames go through rename(), which moves the entry to the new name.
+                } catch (IOException e) {
+                    unsynced.add(path);
+                    if (failure == null) failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Helpers:
+    // The content gets a stream it cannot close, so the channel stays open to be forced afterwards.
+    private static void writeTo (FileChannel channel, ContentWriter content) throws IOException {
+        OutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        content.write(new FilterOutputStream(buffered) {
+            @Override
+            public void write (byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close () throws IOException {
+                flush();
+            }
+        });
+        buffered.flush();
+    }
+
+    // A file system without atomic renames throws AtomicMoveNotSupportedException. That is passed on rather than
+    // falling back to a plain move, which could leave a half-copied file behind after a crash.
+    private static void move (Path source, Path target) throws IOException {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Makes the rename itself durable. Not every platform can open a directory; there it is left to the OS.
+    private static void syncDirectory (Path target) {
+        Path directory = target.toAbsolutePath().getParent();
+        if (directory == null) return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    // A misspelt setting falls back to the default with a warning, instead of failing the class initialization.
+    private static FsyncPolicy policyFromProperty () {
+        String value = System.getProperty(POLICY_PROPERTY);
+        if (value == null) return DEFAULT_POLICY;
+        try {
+            return FsyncPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown " + POLICY_PROPERTY + " value \"" + value + "\" (expected one of "
+                    + Arrays.toString(FsyncPolicy.values()) + "); using " + DEFAULT_POLICY + ".");
+            return DEFAULT_POLICY;
+        }
+    }
+
+    private static long syncIntervalFromProperty () {
+        String value = System.getProperty(INTERVAL_PROPERTY);
+        if (value == null) return DEFAULT_SYNC_INTERVAL_MILLIS;
+        try {
+            long interval = Long.parseLong(value.trim());
+            if (interval > 0) return interval;
+        } catch (NumberFormatException ignored) {
+            // Reported below.
+        }
+        System.err.println("Invalid " + INTERVAL_PROPERTY + " value \"" + value + "\" (expected a positive number of "
+                + "milliseconds); using " + DEFAULT_SYNC_INTERVAL_MILLIS + ".");
+        return DEFAULT_SYNC_INTERVAL_MILLIS;
+    }
+
+    private static synchronized void startSyncer () {
+        if (syncer != null) return;
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(() -> {
+            try {
+                syncPending();
+            } catch (IOException e) {
+                System.err.println("Error syncing files: " + e.getMessage());
+            }
+        }, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+}
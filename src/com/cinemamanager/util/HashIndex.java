@@ -0,0 +1,81 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.IIndex;
+import com.cinemamanager.iface.Identifiable;
+
+import java.util.*;
+import java.util.function.Function;
+
+public class HashIndex <K, ID, E extends Identifiable <ID>> implements IIndex <ID, E> {
+
+    // Attributes:
+    protected final Map <K, Set <E>> buckets;
+    private final Map <ID, K> keyById;
+    private final Function <E, K> keyExtractor;
+
+    // Constructor:
+    public HashIndex (Function <E, K> keyExtractor) {
+        this (keyExtractor, new HashMap<>());
+    }
+
+    protected HashIndex (Function <E, K> keyExtractor, Map <K, Set <E>> buckets) {
+        this.keyExtractor = keyExtractor;
+        this.buckets = buckets;
+        this.keyById = new HashMap<>();
+    }
+
+    // Maintenance:
+    // The key of every indexed element is remembered by ID, so an element that was mutated in place
+    // can still be found in its old bucket when it is re-inserted.
+    @Override
+    public void insert (E element) {
+        remove (element);
+        K key = keyExtractor.apply(element);
+        if (key == null) return;
+
+        buckets.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(element);
+        keyById.put(element.getId(), key);
+    }
+
+    @Override
+    public void remove (E element) {
+        K oldKey = keyById.remove(element.getId());
+        if (oldKey == null) return;
+
+        Set <E> bucket = buckets.get(oldKey);
+        if (bucket != null) {
+            bucket.remove(element);
+            if (bucket.isEmpty()) {
+                buckets.remove(oldKey);
+            }
+        }
+    }
+
+    @Override
+    public void clear () {
+        buckets.clear();
+        keyById.clear();
+    }
+
+    // Lookup:
+    public List <E> get (K key) {
+        Set <E> bucket = buckets.get(key);
+        return bucket == null ? List.of() : List.copyOf(bucket);
+    }
+
+    // The bucket itself, read-only and live: nothing is copied.
+    public Collection <E> view (K key) {
+        Set <E> bucket = buckets.get(key);
+        return bucket == null ? Set.of() : Collections.unmodifiableSet(bucket);
+    }
+
+    public int count (K key) {
+        Set <E> bucket = buckets.get(key);
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    protected K keyOf (E element) {
+        return keyExtractor.apply(element);
+    }
+
+}
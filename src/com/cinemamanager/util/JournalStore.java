@@ -0,0 +1,255 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.ISnapshotSerializer;
+import com.cinemamanager.iface.Identifiable;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public final class JournalStore <ID, E extends Identifiable <ID>> {
+
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DELETE";
+
+    // Attributes:
+    private final List <ISnapshotSerializer <E>> snapshots;
+    private final Path journalPath;
+    private final Path compactingPath;
+    private final Type idType;
+    private final Type elementType;
+    private final long compactionThreshold;
+    private final Supplier <? extends Collection <E>> snapshotSource;
+    private final ExecutorService compactor;
+    // Held by every append to the journal and while compaction rotates it, so a change written by a background
+    // writer cannot land in the journal between it being copied and deleted.
+    private final Object journalLock = new Object();
+    private Future <?> pendingCompaction;
+    private volatile boolean compactionDue;
+
+    // Constructor:
+    // Compaction writes through the first serializer; loading reads whichever of their snapshots is the most recent.
+    public JournalStore (String journalPath, Type idType, Type elementType, Supplier <? extends Collection <E>> snapshotSource,
+                         List <ISnapshotSerializer <E>> snapshots) {
+        this (journalPath, idType, elementType, snapshotSource, snapshots, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public JournalStore (String journalPath, Type idType, Type elementType, Supplier <? extends Collection <E>> snapshotSource,
+                         List <ISnapshotSerializer <E>> snapshots, long compactionThreshold) {
+        if (snapshots.isEmpty()) {
+            throw new IllegalArgumentException ("At least one snapshot serializer is required.");
+        }
+        this.snapshots = List.copyOf(snapshots);
+        this.journalPath = Path.of(journalPath);
+        this.compactingPath = Path.of(journalPath + ".compacting");
+        this.idType = idType;
+        this.elementType = elementType;
+        this.snapshotSource = snapshotSource;
+        this.compactionThreshold = compactionThreshold;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "journal-compactor-" + this.journalPath.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Recording changes:
+    // A failed write is thrown and nothing counts as recorded. How soon a record is on the disk depends on the
+    // DurableFiles policy: every append in a batch shares one sync.
+    public void put (E element) throws IOException {
+        write(Collections.singletonMap(element.getId(), element));
+        compactIfDue();
+    }
+
+    public void delete (ID id) throws IOException {
+        write(Collections.singletonMap(id, null));
+        compactIfDue();
+    }
+
+    // Several changes in one append; a null value records a delete. Meant for a background writer, so it never
+    // compacts by itself (that reads the live store): callers check compactIfDue() from the owning thread.
+    public void write (Map <ID, E> changes) throws IOException {
+        if (changes.isEmpty()) return;
+        StringBuilder records = new StringBuilder();
+        for (Map.Entry <ID, E> change : changes.entrySet()) {
+            JsonObject record = new JsonObject();
+            if (change.getValue() != null) {
+                record.addProperty("op", PUT);
+                record.add("data", JsonUtil.toJsonTree(change.getValue()));
+            } else {
+                record.addProperty("op", DELETE);
+                record.add("id", JsonUtil.toJsonTree(change.getKey()));
+            }
+            records.append(record).append(System.lineSeparator());
+        }
+        byte[] bytes = records.toString().getBytes(StandardCharsets.UTF_8);
+        synchronized (journalLock) {
+            DurableFiles.append(journalPath, out -> out.write(bytes));
+        }
+
+        if (journalSize() > compactionThreshold) {
+            compactionDue = true;
+        }
+    }
+
+    public void compactIfDue () {
+        if (compactionDue) {
+            compactionDue = false;
+            compact();
+        }
+    }
+
+    // Loading:
+    // Streams the snapshot into the sink with the journaled changes applied on top. Journal entries are replayed
+    // in order (the one being compacted first), so the last record for an ID wins.
+    // A snapshot that exists but cannot be read in full stops the load with an IllegalStateException: carrying on
+    // with part of the store would let the next compaction overwrite the file with what was read. An older snapshot
+    // is no fallback either, since the journal only holds the changes made after the newest one.
+    public void load (Consumer <E> sink) {
+        Map <ID, E> pending = new LinkedHashMap<>();
+        replayFile(compactingPath, pending);
+        replayFile(journalPath, pending);
+
+        ISnapshotSerializer <E> latest = latestSnapshot();
+        if (latest != null) {
+            boolean complete = latest.read(latest.getPath(), element -> {
+                ID id = element.getId();
+                if (pending.containsKey(id)) {
+                    element = pending.remove(id);
+                    if (element == null) return;
+                }
+                sink.accept(element);
+            });
+            if (!complete) {
+                throw new IllegalStateException ("Could not read the snapshot " + latest.getPath()
+                        + "; fix or restore it before starting.");
+            }
+        }
+
+        for (E element : pending.values()) {
+            if (element != null) {
+                sink.accept(element);
+            }
+        }
+    }
+
+    // Compaction:
+    // The journal is rotated on the caller's thread, so new changes keep going to a fresh file while the
+    // snapshot is written in the background. The rotated journal is only removed once the snapshot is in place.
+    public synchronized void compact () {
+        if (pendingCompaction != null && !pendingCompaction.isDone()) return;
+        synchronized (journalLock) {
+            if (Files.exists(compactingPath)) {
+                // A previous compaction did not finish: fold both journals into this one.
+                if (!appendFile(journalPath, compactingPath)) return;
+            } else {
+                try {
+                    DurableFiles.rename(journalPath, compactingPath);
+                } catch (NoSuchFileException e) {
+                    return;
+                } catch (IOException e) {
+                    System.err.println("Error rotating journal: " + e.getMessage());
+                    return;
+                }
+            }
+        }
+
+        List <E> snapshot = new ArrayList<>(snapshotSource.get());
+        pendingCompaction = compactor.submit(() -> writeSnapshot(snapshot));
+    }
+
+    // The serializer replaces the snapshot atomically. If that fails the rotated journal is kept, and the next
+    // compaction folds it in again.
+    private void writeSnapshot (List <E> snapshot) {
+        ISnapshotSerializer <E> target = snapshots.get(0);
+        try {
+            target.write(target.getPath(), snapshot);
+            Files.deleteIfExists(compactingPath);
+        } catch (IOException e) {
+            System.err.println("Error compacting journal, keeping " + compactingPath + ": " + e.getMessage());
+        }
+    }
+
+    private ISnapshotSerializer <E> latestSnapshot () {
+        ISnapshotSerializer <E> latest = null;
+        long latestModified = Long.MIN_VALUE;
+        for (ISnapshotSerializer <E> snapshot : snapshots) {
+            try {
+                long modified = Files.getLastModifiedTime(Path.of(snapshot.getPath())).toMillis();
+                if (modified > latestModified) {
+                    latest = snapshot;
+                    latestModified = modified;
+                }
+            } catch (IOException ignored) {
+                // No snapshot in this format.
+            }
+        }
+        return latest;
+    }
+
+    private void replayFile (Path path, Map <ID, E> pending) {
+        if (!Files.exists(path)) return;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonObject record;
+                try {
+                    record = JsonParser.parseString(line).getAsJsonObject();
+                } catch (JsonParseException | IllegalStateException e) {
+                    // A torn record can only be the last one written before a crash.
+                    System.err.println("Ignoring incomplete journal record in " + path);
+                    break;
+                }
+
+                if (PUT.equals(record.get("op").getAsString())) {
+                    E element = JsonUtil.fromJson(record.get("data"), elementType);
+                    pending.remove(element.getId());
+                    pending.put(element.getId(), element);
+                } else {
+                    ID id = JsonUtil.fromJson(record.get("id"), idType);
+                    pending.remove(id);
+                    pending.put(id, null);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading journal: " + e.getMessage());
+        }
+    }
+
+    // Called with journalLock held. False if the journals could not be merged; both are then left as they were,
+    // apart from a copy that may have been partly appended, which replays to the same changes again.
+    private boolean appendFile (Path source, Path target) {
+        if (!Files.exists(source)) return true;
+        try {
+            DurableFiles.append(target, out -> Files.copy(source, out));
+            Files.delete(source);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error merging journals: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private long journalSize () {
+        try {
+            return Files.size(journalPath);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.ISnapshotSerializer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public final class JsonSnapshotSerializer <E> implements ISnapshotSerializer <E> {
+
+    // Attributes:
+    private final String path;
+    private final Type elementType;
+    private final Function <E, ?> keyExtractor;
+
+    // Constructor:
+    // Without a key extractor the snapshot is a JSON array; with one it is an object keyed by it.
+    public JsonSnapshotSerializer (String path, Type elementType) {
+        this (path, elementType, null);
+    }
+
+    public JsonSnapshotSerializer (String path, Type elementType, Function <E, ?> keyExtractor) {
+        this.path = path;
+        this.elementType = elementType;
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public String getPath () {
+        return path;
+    }
+
+    @Override
+    public boolean read (String path, Consumer <E> consumer) {
+        return JsonUtil.readEach(path, elementType, consumer);
+    }
+
+    @Override
+    public void write (String path, Iterable <E> elements) throws IOException {
+        if (keyExtractor == null) {
+            JsonUtil.writeArray(path, elements);
+        } else {
+            JsonUtil.writeMap(path, elements, keyExtractor);
+        }
+    }
+
+}
@@ -1,13 +1,23 @@
 package com.cinemamanager.util;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalTime;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public final class JsonUtil {
@@ -17,12 +27,17 @@ public final class JsonUtil {
             .registerTypeAdapter(LocalTime.class, new LocalTimeAdapter()) // <--- NUEVO
             .create();
 
-    public static <T> void write (String path, T data) {
-        try (FileWriter writer = new FileWriter(path)) {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Writing:
+    // Every write goes through DurableFiles.replace: the live file is only swapped once the new one is complete,
+    // and a failure is thrown to the caller with the old file still in place.
+    public static <T> void write (String path, T data) throws IOException {
+        DurableFiles.replace(Path.of(path), out -> {
+            Writer writer = openWriter(out);
             GSON.toJson(data, writer);
-        } catch (IOException e) {
-            System.err.println("Error saving file: " + e.getMessage());
-        }
+            writer.flush();
+        });
     }
 
     public static <T> T read (String path, Type typeOfT, Supplier <T> defaultSupplier) {
@@ -38,6 +53,86 @@ public final class JsonUtil {
         }
     }
 
+    // Streaming:
+    // Elements are decoded one at a time and handed to the consumer, so the file never exists as a whole in memory.
+    // Works with a JSON array of elements or with an object whose values are the elements.
+    public static <E> boolean readEach (String path, Type elementType, Consumer <E> consumer) {
+        Path file = Path.of(path);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (JsonReader reader = new JsonReader(openReader(file))) {
+            JsonToken root;
+            try {
+                root = reader.peek();
+            } catch (EOFException e) {
+                // Empty file. An end of file anywhere after this is a truncated one and fails below.
+                return true;
+            }
+            if (root == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    consumer.accept(GSON.fromJson(reader, elementType));
+                }
+                reader.endArray();
+            } else if (root == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    reader.nextName();
+                    consumer.accept(GSON.fromJson(reader, elementType));
+                }
+                reader.endObject();
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public static <E> void writeArray (String path, Iterable <E> elements) throws IOException {
+        DurableFiles.replace(Path.of(path), out -> {
+            JsonWriter writer = new JsonWriter(openWriter(out));
+            writer.beginArray();
+            for (E element : elements) {
+                GSON.toJson(element, element.getClass(), writer);
+            }
+            writer.endArray();
+            writer.flush();
+        });
+    }
+
+    public static <K, E> void writeMap (String path, Iterable <E> elements, Function <E, K> keyExtractor) throws IOException {
+        DurableFiles.replace(Path.of(path), out -> {
+            JsonWriter writer = new JsonWriter(openWriter(out));
+            writer.beginObject();
+            for (E element : elements) {
+                writer.name(String.valueOf(keyExtractor.apply(element)));
+                GSON.toJson(element, element.getClass(), writer);
+            }
+            writer.endObject();
+            writer.flush();
+        });
+    }
+
+    private static Reader openReader (Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        return new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    // DurableFiles already buffers the bytes.
+    private static Writer openWriter (OutputStream out) {
+        return new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    public static JsonElement toJsonTree (Object data) {
+        return GSON.toJsonTree(data);
+    }
+
+    public static <T> T fromJson (JsonElement json, Type typeOfT) {
+        return GSON.fromJson(json, typeOfT);
+    }
+
     private static class DurationAdapter extends TypeAdapter <Duration> {
         @Override
         public void write(JsonWriter out, Duration value) throws IOException {
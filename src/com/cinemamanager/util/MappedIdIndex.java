@@ -0,0 +1,198 @@
+package com.cinemamanager.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+// ID -> record slot table of a MappedStorageManager, kept off the heap in its own memory-mapped file.
+// Open addressing with linear probing over packed longs: the ID in the high half, slot + 1 in the low half, so an
+// all-zero bucket is empty; -1 marks a removed entry. Once half the buckets are taken the table is rebuilt at
+// twice the live size into a new file, which is renamed over the old one.
+final class MappedIdIndex {
+
+    private static final int MAGIC = 0x434D4931; // "CMI1"
+    private static final int HEADER_SIZE = 16;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int USED_OFFSET = 8;
+    private static final int LIVE_OFFSET = 12;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final long EMPTY = 0L;
+    private static final long REMOVED = -1L;
+
+    // Attributes:
+    private final Path path;
+    private MappedByteBuffer table;
+    private int capacity;
+    // Buckets that are not empty, removed ones included; probing only stops at an empty one.
+    private int used;
+    private int live;
+
+    private MappedIdIndex (Path path, MappedByteBuffer table) {
+        this.path = path;
+        this.table = table;
+        this.capacity = table.getInt(CAPACITY_OFFSET);
+        this.used = table.getInt(USED_OFFSET);
+        this.live = table.getInt(LIVE_OFFSET);
+    }
+
+    // Opening:
+    // Null if there is no usable table at `path`; the store then rebuilds it from its records.
+    static MappedIdIndex open (Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+            return null;
+        }
+        MappedByteBuffer table = map(path, Files.size(path), false);
+        int capacity = table.getInt(CAPACITY_OFFSET);
+        if (table.getInt(0) != MAGIC || Integer.bitCount(capacity) != 1
+                || Files.size(path) != HEADER_SIZE + (long) capacity * Long.BYTES) {
+            return null;
+        }
+        return new MappedIdIndex(path, table);
+    }
+
+    static MappedIdIndex create (Path path, int expectedSize) throws IOException {
+        return new MappedIdIndex(path, createTable(path, capacityFor(expectedSize)));
+    }
+
+    // Lookup:
+    // The slot of the ID, or -1.
+    int get (int id) {
+        for (int bucket = bucketOf(id); ; bucket = (bucket + 1) & (capacity - 1)) {
+            long entry = entry(bucket);
+            if (entry == EMPTY) return -1;
+            if (entry != REMOVED && idOf(entry) == id) return slotOf(entry);
+        }
+    }
+
+    int size () {
+        return live;
+    }
+
+    // Changes:
+    void put (int id, int slot) throws IOException {
+        if ((long) (used + 1) * 2 > capacity) {
+            grow();
+        }
+        int free = -1;
+        for (int bucket = bucketOf(id); ; bucket = (bucket + 1) & (capacity - 1)) {
+            long entry = entry(bucket);
+            if (entry == EMPTY) {
+                if (free == -1) {
+                    free = bucket;
+                    setUsed(used + 1);
+                }
+                break;
+            }
+            if (entry == REMOVED) {
+                if (free == -1) free = bucket;
+            } else if (idOf(entry) == id) {
+                setEntry(bucket, id, slot);
+                return;
+            }
+        }
+        setEntry(free, id, slot);
+        setLive(live + 1);
+    }
+
+    boolean remove (int id) {
+        for (int bucket = bucketOf(id); ; bucket = (bucket + 1) & (capacity - 1)) {
+            long entry = entry(bucket);
+            if (entry == EMPTY) return false;
+            if (entry != REMOVED && idOf(entry) == id) {
+                table.putLong(offsetOf(bucket), REMOVED);
+                setLive(live - 1);
+                return true;
+            }
+        }
+    }
+
+    void force () {
+        table.force();
+    }
+
+    // Helpers:
+    // Removed buckets are dropped on the way, so a table with many deletes can also shrink back.
+    private void grow () throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        MappedByteBuffer grown = createTable(temp, capacityFor(live + 1));
+        MappedIdIndex copy = new MappedIdIndex(temp, grown);
+        for (int bucket = 0; bucket < capacity; bucket++) {
+            long entry = entry(bucket);
+            if (entry != EMPTY && entry != REMOVED) {
+                copy.put(idOf(entry), slotOf(entry));
+            }
+        }
+        grown.force();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        this.table = grown;
+        this.capacity = copy.capacity;
+        this.used = copy.used;
+        this.live = copy.live;
+    }
+
+    private static MappedByteBuffer createTable (Path path, int capacity) throws IOException {
+        Files.deleteIfExists(path);
+        MappedByteBuffer table = map(path, HEADER_SIZE + (long) capacity * Long.BYTES, true);
+        table.putInt(0, MAGIC);
+        table.putInt(CAPACITY_OFFSET, capacity);
+        return table;
+    }
+
+    private static MappedByteBuffer map (Path path, long size, boolean create) throws IOException {
+        OpenOption[] options = create
+                ? new OpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW}
+                : new OpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE};
+        // The mapping stays valid once the channel is closed.
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    // At most half full right after being built, with room to grow.
+    private static int capacityFor (int entries) {
+        long wanted = Math.max(MIN_CAPACITY, (long) entries * 4);
+        if (wanted > MAX_CAPACITY) {
+            throw new IllegalStateException ("Too many IDs for one mapped index: " + entries);
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    private int bucketOf (int id) {
+        int hash = id * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (capacity - 1);
+    }
+
+    private long entry (int bucket) {
+        return table.getLong(offsetOf(bucket));
+    }
+
+    private void setEntry (int bucket, int id, int slot) {
+        table.putLong(offsetOf(bucket), ((long) id << 32) | ((slot + 1) & 0xFFFFFFFFL));
+    }
+
+    private void setUsed (int used) {
+        this.used = used;
+        table.putInt(USED_OFFSET, used);
+    }
+
+    private void setLive (int live) {
+        this.live = live;
+        table.putInt(LIVE_OFFSET, live);
+    }
+
+    private static int offsetOf (int bucket) {
+        return HEADER_SIZE + bucket * Long.BYTES;
+    }
+
+    private static int idOf (long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int slotOf (long entry) {
+        return (int) entry - 1;
+    }
+
+}
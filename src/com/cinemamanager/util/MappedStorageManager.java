@@ -0,0 +1,490 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.enums.FsyncPolicy;
+import com.cinemamanager.exception.DuplicateElementException;
+import com.cinemamanager.iface.IBinaryCodec;
+import com.cinemamanager.iface.ICrud;
+import com.cinemamanager.iface.Identifiable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Store for more entities than the heap should hold. Each entity is encoded with its binary codec into a
+// fixed-size record of a memory-mapped file and found through an off-heap ID table (MappedIdIndex) in a second
+// mapped file, so opening a store maps both files instead of parsing them.
+// Entities are decoded when they are read and are copies: a change is only stored by update(). Records are never
+// rewritten in place: update() writes the new version to a free record and points the ID there, and the old one is
+// only freed by the next flush(), once the new one is on the disk. Deleted records are reused. The file is mapped
+// in segments as it grows, so no single mapping has to cover all of it and only the pages in use are in memory.
+// A store that was not closed cleanly rebuilds its ID table from the record headers the next time it is opened.
+// Every record carries a sequence number and a checksum, so the rebuild drops records torn by a crash and keeps
+// the newest intact version of each ID.
+public final class MappedStorageManager <E extends Identifiable <Integer>> implements ICrud <E, Integer>, Closeable {
+
+    private static final int MAGIC = 0x434D4D31; // "CMM1"
+    private static final int VERSION = 2;
+    private static final String INDEX_EXTENSION = ".idx";
+    private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    // File header.
+    private static final int HEADER_SIZE = 64;
+    private static final int VERSION_OFFSET = 4;
+    private static final int RECORD_SIZE_OFFSET = 8;
+    private static final int CLEAN_OFFSET = 12;
+    private static final int SLOT_COUNT_OFFSET = 16;
+    private static final int FREE_HEAD_OFFSET = 20;
+    private static final int NEXT_SEQUENCE_OFFSET = 24;
+
+    // Record header: the ID, the payload length (0 in a free record, written last), the sequence number of the
+    // write and a CRC32C of the ID, length, sequence and payload.
+    private static final int RECORD_HEADER_SIZE = 20;
+    private static final int LENGTH_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int CHECKSUM_OFFSET = 16;
+    private static final int MIN_RECORD_SIZE = RECORD_HEADER_SIZE + Integer.BYTES;
+
+    // Attributes:
+    private final Path dataPath;
+    private final Path indexPath;
+    private final IBinaryCodec <E> codec;
+    private final int recordSize;
+    private final int recordsPerSegment;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List <MappedByteBuffer> segments = new ArrayList<>();
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    // Old versions of updated records, still intact on the disk until flush() frees them.
+    private final BitSet retired = new BitSet();
+    private MappedIdIndex ids;
+    private boolean closed;
+
+    // Constructor:
+    // Opens the store at `path`, creating it if needed. The record size is fixed when the file is created; an
+    // entity that does not fit in it is rejected when it is added.
+    public MappedStorageManager (String path, IBinaryCodec <E> codec, int recordSize) throws IOException {
+        if (recordSize < MIN_RECORD_SIZE || recordSize > SEGMENT_SIZE) {
+            throw new IllegalArgumentException ("The record size must be between " + MIN_RECORD_SIZE + " and " + SEGMENT_SIZE + " bytes.");
+        }
+        this.dataPath = Path.of(path);
+        this.indexPath = Path.of(path + INDEX_EXTENSION);
+        this.codec = codec;
+        this.recordSize = recordSize;
+        this.recordsPerSegment = (int) (SEGMENT_SIZE / recordSize);
+
+        boolean exists = Files.exists(dataPath) && Files.size(dataPath) >= HEADER_SIZE;
+        this.channel = FileChannel.open(dataPath, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (exists) {
+                checkHeader();
+            } else {
+                header.putInt(0, MAGIC);
+                header.putInt(VERSION_OFFSET, VERSION);
+                header.putInt(RECORD_SIZE_OFFSET, recordSize);
+                header.putInt(FREE_HEAD_OFFSET, -1);
+            }
+
+            boolean clean = !exists || header.getInt(CLEAN_OFFSET) == 1;
+            this.ids = clean ? MappedIdIndex.open(indexPath) : null;
+            if (ids == null) {
+                rebuildIndex();
+            }
+            // Cleared while open, so a crash is noticed next time.
+            header.putInt(CLEAN_OFFSET, 0);
+            header.force();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Clear collection:
+    public void clear () {
+        checkOpen();
+        retired.clear();
+        header.putInt(SLOT_COUNT_OFFSET, 0);
+        header.putInt(FREE_HEAD_OFFSET, -1);
+        try {
+            ids = MappedIdIndex.create(indexPath, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException ("Error clearing " + dataPath, e);
+        }
+    }
+
+    @Override
+    public int size () {
+        checkOpen();
+        return ids.size();
+    }
+
+    // CRUD methods:
+    @Override
+    public void add (E element, boolean duplicatesAllowed) throws DuplicateElementException {
+        checkOpen();
+        byte[] payload = encode(element);
+        int slot = ids.get(element.getId());
+        if (slot != -1) {
+            if (!duplicatesAllowed) {
+                throw new DuplicateElementException (true);
+            }
+            boolean confirm = ConsoleUtil.confirm("Warning: the key already exists in the map. This will overwrite the existing value.");
+            if (!confirm) return;
+        }
+        store(element.getId(), slot, payload);
+    }
+
+    @Override
+    public Optional <E> findById (Integer id) {
+        checkOpen();
+        int slot = ids.get(id);
+        return slot == -1 ? Optional.empty() : Optional.of(read(slot));
+    }
+
+    // Scans decode one record at a time and keep only the matches.
+    @Override
+    public Optional <E> findFirstBy (Predicate <E> condition) {
+        checkOpen();
+        int slotCount = slotCount();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!isLive(slot)) continue;
+            E element = read(slot);
+            if (condition.test(element)) return Optional.of(element);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List <E> findBy (Predicate <E> condition) {
+        checkOpen();
+        List <E> matches = new ArrayList<>();
+        int slotCount = slotCount();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!isLive(slot)) continue;
+            E element = read(slot);
+            if (condition.test(element)) matches.add(element);
+        }
+        return matches;
+    }
+
+    @Override
+    public List <E> findAll () {
+        return findBy(e -> true);
+    }
+
+    // Each record is decoded when the iterator reaches it, so a stream that stops early never reads the rest.
+    @Override
+    public Collection <E> view () {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator <E> iterator () {
+                checkOpen();
+                return new RecordIterator();
+            }
+
+            @Override
+            public int size () {
+                return MappedStorageManager.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream <E> stream () {
+        return view().stream();
+    }
+
+    @Override
+    public void update (E element) throws IllegalArgumentException {
+        checkOpen();
+        byte[] payload = encode(element);
+        store(element.getId(), ids.get(element.getId()), payload);
+        System.out.println("Element updated successfully!");
+    }
+
+    @Override
+    public void delete (Integer id) {
+        checkOpen();
+        int slot = ids.get(id);
+        if (slot == -1) {
+            System.out.println("No element found with the given ID.");
+            return;
+        }
+
+        String warning = "This operation is irreversible. The following element will be deleted:\n" + read(slot);
+        if (ConsoleUtil.confirm(warning)) {
+            ids.remove(id);
+            release(slot);
+            syncIfRequired(slot);
+            System.out.println("Element successfully deleted.");
+        }
+    }
+
+    // Durability:
+    // Under FsyncPolicy.ALWAYS every change is forced to the disk as it is made; otherwise only here and on close.
+    // Old versions of updated records are freed once their replacements have been forced.
+    public void flush () {
+        checkOpen();
+        forceAll();
+        if (!retired.isEmpty()) {
+            releaseRetired();
+            forceAll();
+        }
+    }
+
+    // Closing twice does nothing; any other use of a closed store throws IllegalStateException.
+    @Override
+    public void close () throws IOException {
+        if (closed) return;
+        flush();
+        header.putInt(CLEAN_OFFSET, 1);
+        header.force();
+        closed = true;
+        channel.close();
+    }
+
+    private final class RecordIterator implements Iterator <E> {
+        private int slot = nextUsed(0);
+
+        @Override
+        public boolean hasNext () {
+            return slot != -1;
+        }
+
+        @Override
+        public E next () {
+            checkOpen();
+            if (slot == -1) {
+                throw new NoSuchElementException ();
+            }
+            E element = read(slot);
+            slot = nextUsed(slot + 1);
+            return element;
+        }
+
+        private int nextUsed (int from) {
+            int slotCount = slotCount();
+            for (int candidate = from; candidate < slotCount; candidate++) {
+                if (isLive(candidate)) return candidate;
+            }
+            return -1;
+        }
+    }
+
+    // Records:
+    // Every write goes to a free record; the ID is switched to it once it is complete, and a previous version is
+    // retired rather than overwritten.
+    private void store (int id, int previousSlot, byte[] payload) {
+        int slot = allocate();
+        MappedByteBuffer segment = segmentOf(slot);
+        int offset = offsetOf(slot);
+        long sequence = nextSequence();
+        segment.put(offset + RECORD_HEADER_SIZE, payload);
+        segment.putInt(offset, id);
+        segment.putLong(offset + SEQUENCE_OFFSET, sequence);
+        segment.putInt(offset + CHECKSUM_OFFSET, checksum(id, payload.length, sequence, ByteBuffer.wrap(payload)));
+        segment.putInt(offset + LENGTH_OFFSET, payload.length);
+        try {
+            ids.put(id, slot);
+        } catch (IOException e) {
+            release(slot);
+            throw new UncheckedIOException ("Error growing the ID index of " + dataPath, e);
+        }
+        if (previousSlot != -1) {
+            retired.set(previousSlot);
+        }
+        syncIfRequired(slot);
+    }
+
+    private E read (int slot) {
+        MappedByteBuffer segment = segmentOf(slot);
+        int offset = offsetOf(slot);
+        byte[] payload = new byte[segment.getInt(offset + LENGTH_OFFSET)];
+        segment.get(offset + RECORD_HEADER_SIZE, payload);
+        try (BinaryUtil.Input in = BinaryUtil.recordInput(new ByteArrayInputStream(payload))) {
+            return codec.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException ("Unreadable record " + slot + " in " + dataPath, e);
+        }
+    }
+
+    private byte[] encode (E element) {
+        encoded.reset();
+        try {
+            BinaryUtil.Output out = BinaryUtil.recordOutput(encoded);
+            codec.write(out, element);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException (e);
+        }
+        if (encoded.size() > recordSize - RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException ("Element " + element.getId() + " takes " + encoded.size()
+                    + " bytes, more than the " + (recordSize - RECORD_HEADER_SIZE) + " a record of " + dataPath + " holds.");
+        }
+        return encoded.toByteArray();
+    }
+
+    private long nextSequence () {
+        long sequence = header.getLong(NEXT_SEQUENCE_OFFSET);
+        header.putLong(NEXT_SEQUENCE_OFFSET, sequence + 1);
+        return sequence;
+    }
+
+    private static int checksum (int id, int length, long sequence, ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(16).putInt(id).putInt(length).putLong(sequence).flip());
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // Free records form a list through their first payload bytes.
+    private int allocate () {
+        int free = header.getInt(FREE_HEAD_OFFSET);
+        if (free != -1) {
+            header.putInt(FREE_HEAD_OFFSET, segmentOf(free).getInt(offsetOf(free) + RECORD_HEADER_SIZE));
+            return free;
+        }
+        int slotCount = slotCount();
+        if (slotCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException ("No room left in " + dataPath);
+        }
+        header.putInt(SLOT_COUNT_OFFSET, slotCount + 1);
+        return slotCount;
+    }
+
+    private void release (int slot) {
+        MappedByteBuffer segment = segmentOf(slot);
+        int offset = offsetOf(slot);
+        segment.putInt(offset + LENGTH_OFFSET, 0);
+        segment.putInt(offset + RECORD_HEADER_SIZE, header.getInt(FREE_HEAD_OFFSET));
+        header.putInt(FREE_HEAD_OFFSET, slot);
+    }
+
+    private void releaseRetired () {
+        for (int slot = retired.nextSetBit(0); slot != -1; slot = retired.nextSetBit(slot + 1)) {
+            release(slot);
+        }
+        retired.clear();
+    }
+
+    private boolean isFree (int slot) {
+        return segmentOf(slot).getInt(offsetOf(slot) + LENGTH_OFFSET) == 0;
+    }
+
+    private boolean isLive (int slot) {
+        return !isFree(slot) && !retired.get(slot);
+    }
+
+    private int slotCount () {
+        return header.getInt(SLOT_COUNT_OFFSET);
+    }
+
+    // Segments are mapped the first time one of their records is used.
+    private MappedByteBuffer segmentOf (int slot) {
+        int index = slot / recordsPerSegment;
+        while (segments.size() <= index) {
+            long position = HEADER_SIZE + (long) segments.size() * recordsPerSegment * recordSize;
+            try {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, (long) recordsPerSegment * recordSize));
+            } catch (IOException e) {
+                throw new UncheckedIOException ("Error mapping " + dataPath, e);
+            }
+        }
+        return segments.get(index);
+    }
+
+    private int offsetOf (int slot) {
+        return (slot % recordsPerSegment) * recordSize;
+    }
+
+    private void syncIfRequired (int slot) {
+        if (DurableFiles.getPolicy() == FsyncPolicy.ALWAYS) {
+            segmentOf(slot).force(offsetOf(slot), recordSize);
+            ids.force();
+            header.force();
+            if (!retired.isEmpty()) {
+                flush();
+            }
+        }
+    }
+
+    private void forceAll () {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        ids.force();
+        header.force();
+    }
+
+    private void checkOpen () {
+        if (closed) {
+            throw new IllegalStateException (dataPath + " is closed.");
+        }
+    }
+
+    // Opening:
+    private void checkHeader () throws IOException {
+        if (header.getInt(0) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException ("Not a mapped store: " + dataPath);
+        }
+        int storedRecordSize = header.getInt(RECORD_SIZE_OFFSET);
+        if (storedRecordSize != recordSize) {
+            throw new IOException (dataPath + " holds records of " + storedRecordSize + " bytes, not " + recordSize + ".");
+        }
+    }
+
+    // Reads the record headers and checks each record against its checksum. A record torn by a crash is dropped,
+    // and when an update left two intact versions of an ID the newer one wins. Walking backwards to build the free
+    // list makes it hand out the lowest records first.
+    private void rebuildIndex () throws IOException {
+        int slotCount = slotCount();
+        ids = MappedIdIndex.create(indexPath, slotCount);
+        long nextSequence = 0;
+        int dropped = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            MappedByteBuffer segment = segmentOf(slot);
+            int offset = offsetOf(slot);
+            int length = segment.getInt(offset + LENGTH_OFFSET);
+            if (length == 0) continue;
+            int id = segment.getInt(offset);
+            long sequence = segment.getLong(offset + SEQUENCE_OFFSET);
+            if (length < 0 || length > recordSize - RECORD_HEADER_SIZE
+                    || segment.getInt(offset + CHECKSUM_OFFSET) != checksum(id, length, sequence, segment.slice(offset + RECORD_HEADER_SIZE, length))) {
+                segment.putInt(offset + LENGTH_OFFSET, 0);
+                dropped++;
+                continue;
+            }
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            int other = ids.get(id);
+            if (other != -1 && segmentOf(other).getLong(offsetOf(other) + SEQUENCE_OFFSET) > sequence) {
+                segment.putInt(offset + LENGTH_OFFSET, 0);
+                continue;
+            }
+            if (other != -1) {
+                segmentOf(other).putInt(offsetOf(other) + LENGTH_OFFSET, 0);
+            }
+            ids.put(id, slot);
+        }
+
+        int freeHead = -1;
+        for (int slot = slotCount - 1; slot >= 0; slot--) {
+            if (isFree(slot)) {
+                segmentOf(slot).putInt(offsetOf(slot) + RECORD_HEADER_SIZE, freeHead);
+                freeHead = slot;
+            }
+        }
+        header.putInt(FREE_HEAD_OFFSET, freeHead);
+        header.putLong(NEXT_SEQUENCE_OFFSET, nextSequence);
+        if (dropped > 0) {
+            System.err.println("Dropped " + dropped + " incomplete record(s) from " + dataPath + " after an unclean shutdown.");
+        }
+    }
+}
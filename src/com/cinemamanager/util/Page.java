@@ -0,0 +1,152 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.Identifiable;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// One page of a keyset-paginated listing. Elements are ordered by a sort key with ties broken by ID, and the
+// cursor to the next page holds the key and ID of the last element handed out, not a position: pages stay
+// correct while elements are added or removed, and nothing is skipped or shown twice.
+// Every listing order has a name, which the cursor carries, so a cursor is only accepted by a listing in the
+// same order. A store with a sorted index of that name seeks to the cursor (SortedIndex.page); otherwise the page
+// is picked out of a full pass with of(), or out of a list sorted once with pager().
+public final class Page <E> {
+
+    // Attributes:
+    private final List <E> items;
+    private final Cursor next;
+
+    Page (List <E> items, Cursor next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List <E> getItems () {
+        return items;
+    }
+
+    public boolean hasNext () {
+        return next != null;
+    }
+
+    // Null on the last page.
+    public Cursor getNextCursor () {
+        return next;
+    }
+
+    // Opaque to callers: it can only be handed back to the listing that produced it.
+    public static final class Cursor {
+        private final String order;
+        private final Object key;
+        private final Object id;
+
+        Cursor (String order, Object key, Object id) {
+            this.order = order;
+            this.key = key;
+            this.id = id;
+        }
+
+        Object getKey () {
+            return key;
+        }
+
+        Object getId () {
+            return id;
+        }
+
+        void checkOrder (String order) {
+            if (!this.order.equals(order)) {
+                throw new IllegalArgumentException ("The cursor belongs to the listing in '" + this.order + "' order, not '" + order + "'.");
+            }
+        }
+    }
+
+    // Paging:
+    // The page after `cursor` (null for the first one) out of `elements`, in one pass that keeps at most
+    // pageSize + 1 of them. Null keys sort first. IDs must be Comparable.
+    public static <ID, E extends Identifiable <ID>, K extends Comparable <? super K>> Page <E> of (
+            Stream <E> elements, String order, Function <E, K> sortKey, int pageSize, Cursor cursor) {
+        checkPageSize(pageSize);
+        if (cursor != null) {
+            cursor.checkOrder(order);
+        }
+
+        Comparator <E> elementOrder = elementOrder(sortKey);
+        // Largest on top, so the head is the one to drop when a smaller element comes along.
+        PriorityQueue <E> smallest = new PriorityQueue<>(pageSize + 2, elementOrder.reversed());
+        elements.forEach(element -> {
+            if (cursor != null && !isAfter(element, sortKey, cursor)) return;
+            if (smallest.size() <= pageSize) {
+                smallest.add(element);
+            } else if (elementOrder.compare(element, smallest.peek()) < 0) {
+                smallest.poll();
+                smallest.add(element);
+            }
+        });
+
+        List <E> items = new ArrayList<>(smallest);
+        items.sort(elementOrder);
+        return fromOrdered(items, order, sortKey, pageSize);
+    }
+
+    // Pages of a fixed collection, such as search results: it is sorted once, and each page is then found by a
+    // binary search for the cursor, so paging through it does not go over the whole collection again.
+    public static <ID, E extends Identifiable <ID>, K extends Comparable <? super K>> Function <Cursor, Page <E>> pager (
+            Collection <E> elements, String order, Function <E, K> sortKey, int pageSize) {
+        checkPageSize(pageSize);
+        Comparator <E> elementOrder = elementOrder(sortKey);
+        List <E> sorted = new ArrayList<>(elements);
+        sorted.sort(elementOrder);
+        return cursor -> {
+            int from = 0;
+            if (cursor != null) {
+                cursor.checkOrder(order);
+                int low = 0;
+                int high = sorted.size();
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (isAfter(sorted.get(middle), sortKey, cursor)) {
+                        high = middle;
+                    } else {
+                        low = middle + 1;
+                    }
+                }
+                from = low;
+            }
+            int to = (int) Math.min(sorted.size(), (long) from + pageSize + 1);
+            return fromOrdered(new ArrayList<>(sorted.subList(from, to)), order, sortKey, pageSize);
+        };
+    }
+
+    // `items` are the next elements in order, at most pageSize + 1 of them; one more than a page means there is
+    // a next page, and that element is dropped.
+    static <ID, E extends Identifiable <ID>, K> Page <E> fromOrdered (List <E> items, String order, Function <E, K> sortKey, int pageSize) {
+        if (items.size() <= pageSize) {
+            return new Page<>(items, null);
+        }
+        items.remove(items.size() - 1);
+        E last = items.get(items.size() - 1);
+        return new Page<>(items, new Cursor(order, sortKey.apply(last), last.getId()));
+    }
+
+    static void checkPageSize (int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException ("The page size must be positive.");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <ID, E extends Identifiable <ID>, K extends Comparable <? super K>> Comparator <E> elementOrder (Function <E, K> sortKey) {
+        return Comparator.comparing(sortKey, Comparator.<K>nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(e -> (Comparable <Object>) e.getId());
+    }
+
+    // Whether the element comes after the last one of the cursor's page.
+    @SuppressWarnings("unchecked")
+    private static <ID, E extends Identifiable <ID>, K extends Comparable <? super K>> boolean isAfter (E element, Function <E, K> sortKey, Cursor cursor) {
+        int byKey = Comparator.<K>nullsFirst(Comparator.naturalOrder()).compare(sortKey.apply(element), (K) cursor.key);
+        return byKey > 0 || byKey == 0 && ((Comparable <Object>) cursor.id).compareTo(element.getId()) < 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.cinemamanager.util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+public final class PasswordUtil {
+
+    // Stored format: pbkdf2-sha256$<iterations>$<salt>$<hash>, salt and hash in Base64.
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int DEFAULT_ITERATIONS = 310_000;
+    // The work factor can be tuned per installation without a code change; existing hashes are upgraded on login.
+    private static final int ITERATIONS = Integer.getInteger("cinemamanager.password.iterations", DEFAULT_ITERATIONS);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public static String hash (String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = derive(password, salt, ITERATIONS);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + "$" + ITERATIONS + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    public static boolean verify (String password, String stored) {
+        if (password == null || stored == null) return false;
+        if (!isHashed(stored)) {
+            // Accounts saved before passwords were hashed; they are rehashed on their next login.
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, salt, iterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Spends the same time as a real verification, so unknown nicknames cannot be told apart by response time.
+    public static void verifyDummy (String password) {
+        verify(password, DummyHash.VALUE);
+    }
+
+    public static boolean needsRehash (String stored) {
+        if (!isHashed(stored)) return true;
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !parts[1].equals(String.valueOf(ITERATIONS));
+    }
+
+    // Computed on first use only, so startup does not pay for it.
+    private static final class DummyHash {
+        private static final String VALUE = hash("dummy-password");
+    }
+
+    private static boolean isHashed (String stored) {
+        return stored.startsWith(PREFIX + "$");
+    }
+
+    private static byte[] derive (String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Password hashing is not available: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.cinemamanager.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Case-insensitive compiled patterns, least recently used dropped first. Repeating a regex search skips
+// Pattern.compile.
+public final class PatternCache {
+    private static final int DEFAULT_CAPACITY = 128;
+
+    private final Map <String, Pattern> patterns;
+
+    public PatternCache () {
+        this (DEFAULT_CAPACITY);
+    }
+
+    public PatternCache (int capacity) {
+        this.patterns = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry <String, Pattern> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Throws PatternSyntaxException for an invalid regex, like Pattern.compile.
+    public synchronized Pattern get (String regex) {
+        Pattern pattern = patterns.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            patterns.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    public synchronized int size () {
+        return patterns.size();
+    }
+
+}
@@ -0,0 +1,241 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.IIndex;
+import com.cinemamanager.iface.Identifiable;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+// A set of conditions over a StorageManager, run in one pass. The planner asks every indexed condition how many
+// elements it would return (bucket sizes only), reads the smallest one from its index and checks the rest on
+// those elements alone: other indexed conditions first, most selective first, then plain predicates.
+// Without a sort the pass stops as soon as offset + limit elements have matched.
+public final class Query <ID, E extends Identifiable <ID>> {
+
+    // Attributes:
+    private final StorageManager <ID, E> storage;
+    private final List <Condition <E>> conditions = new ArrayList<>();
+    private final List <Predicate <E>> filters = new ArrayList<>();
+    private Comparator <? super E> order;
+    private int offset;
+    private int limit = Integer.MAX_VALUE;
+
+    // Constructor:
+    Query (StorageManager <ID, E> storage) {
+        this.storage = storage;
+    }
+
+    // Conditions:
+    @SuppressWarnings("unchecked")
+    public <K> Query <ID, E> whereEquals (String indexName, K key) {
+        IIndex <ID, E> index = storage.getIndex(indexName);
+        if (!(index instanceof HashIndex)) {
+            throw new IllegalArgumentException ("Index '" + indexName + "' does not support key lookups.");
+        }
+        conditions.add(new EqualsCondition<>(indexName, (HashIndex <K, ID, E>) index, key));
+        return this;
+    }
+
+    // A null bound leaves that side open. Both bounds are inclusive.
+    @SuppressWarnings("unchecked")
+    public <K extends Comparable <? super K>> Query <ID, E> whereBetween (String indexName, K from, K to) {
+        IIndex <ID, E> index = storage.getIndex(indexName);
+        if (!(index instanceof SortedIndex)) {
+            throw new IllegalArgumentException ("Index '" + indexName + "' does not support range queries.");
+        }
+        conditions.add(new RangeCondition<>(indexName, (SortedIndex <K, ID, E>) index, from, to));
+        return this;
+    }
+
+    public Query <ID, E> where (Predicate <E> condition) {
+        filters.add(condition);
+        return this;
+    }
+
+    // Results:
+    public Query <ID, E> orderBy (Comparator <? super E> comparator) {
+        this.order = comparator;
+        return this;
+    }
+
+    public Query <ID, E> offset (int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException ("The offset cannot be negative.");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    public Query <ID, E> limit (int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException ("The limit cannot be negative.");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public List <E> list () {
+        Plan <E> plan = plan();
+        if (plan.driverEstimate == 0 || limit == 0) {
+            return new ArrayList<>();
+        }
+
+        Iterable <E> candidates = plan.driver == null ? storage.values() : plan.driver.fetch();
+        int wanted = order == null ? (int) Math.min((long) offset + limit, Integer.MAX_VALUE) : Integer.MAX_VALUE;
+        List <E> matches = new ArrayList<>();
+        for (E element : candidates) {
+            if (plan.accepts(element)) {
+                matches.add(element);
+                if (matches.size() == wanted) break;
+            }
+        }
+
+        if (order != null) {
+            matches.sort(order);
+        }
+        int from = Math.min(offset, matches.size());
+        int to = (int) Math.min((long) from + limit, matches.size());
+        return new ArrayList<>(matches.subList(from, to));
+    }
+
+    public int count () {
+        Plan <E> plan = plan();
+        if (plan.driverEstimate == 0) return 0;
+
+        int count = 0;
+        for (E element : plan.driver == null ? storage.values() : plan.driver.fetch()) {
+            if (plan.accepts(element)) count++;
+        }
+        return count;
+    }
+
+    // The plan list() would run, e.g. "index genre (12) -> check audio (40) -> 1 filter(s) -> limit 10".
+    public String explain () {
+        Plan <E> plan = plan();
+        StringJoiner steps = new StringJoiner(" -> ");
+        steps.add(plan.driver == null ? "scan (" + plan.driverEstimate + ")" : "index " + plan.driver.describe() + " (" + plan.driverEstimate + ")");
+        for (Condition <E> condition : plan.residual) {
+            steps.add("check " + condition.describe() + " (" + condition.estimate() + ")");
+        }
+        if (!filters.isEmpty()) steps.add(filters.size() + " filter(s)");
+        if (order != null) steps.add("sort");
+        if (offset > 0) steps.add("offset " + offset);
+        if (limit != Integer.MAX_VALUE) steps.add("limit " + limit);
+        return steps.toString();
+    }
+
+    // Planning:
+    private Plan <E> plan () {
+        List <Condition <E>> byEstimate = new ArrayList<>(conditions);
+        Map <Condition <E>, Integer> estimates = new HashMap<>();
+        for (Condition <E> condition : byEstimate) {
+            estimates.put(condition, condition.estimate());
+        }
+        byEstimate.sort(Comparator.comparing(estimates::get));
+
+        if (byEstimate.isEmpty()) {
+            return new Plan<>(null, storage.values().size(), List.of(), filters);
+        }
+        Condition <E> driver = byEstimate.get(0);
+        return new Plan<>(driver, estimates.get(driver), byEstimate.subList(1, byEstimate.size()), filters);
+    }
+
+    private static final class Plan <E> {
+        private final Condition <E> driver;
+        private final int driverEstimate;
+        private final List <Condition <E>> residual;
+        private final List <Predicate <E>> filters;
+
+        private Plan (Condition <E> driver, int driverEstimate, List <Condition <E>> residual, List <Predicate <E>> filters) {
+            this.driver = driver;
+            this.driverEstimate = driverEstimate;
+            this.residual = residual;
+            this.filters = filters;
+        }
+
+        private boolean accepts (E element) {
+            for (Condition <E> condition : residual) {
+                if (!condition.test(element)) return false;
+            }
+            for (Predicate <E> filter : filters) {
+                if (!filter.test(element)) return false;
+            }
+            return true;
+        }
+    }
+
+    // Conditions backed by an index:
+    private interface Condition <E> {
+        int estimate ();
+        Collection <E> fetch ();
+        boolean test (E element);
+        String describe ();
+    }
+
+    private static final class EqualsCondition <K, ID, E extends Identifiable <ID>> implements Condition <E> {
+        private final String name;
+        private final HashIndex <K, ID, E> index;
+        private final K key;
+
+        private EqualsCondition (String name, HashIndex <K, ID, E> index, K key) {
+            this.name = name;
+            this.index = index;
+            this.key = key;
+        }
+
+        @Override
+        public int estimate () {
+            return index.count(key);
+        }
+
+        @Override
+        public Collection <E> fetch () {
+            return index.view(key);
+        }
+
+        @Override
+        public boolean test (E element) {
+            return Objects.equals(index.keyOf(element), key);
+        }
+
+        @Override
+        public String describe () {
+            return name + " = " + key;
+        }
+    }
+
+    private static final class RangeCondition <K extends Comparable <? super K>, ID, E extends Identifiable <ID>> implements Condition <E> {
+        private final String name;
+        private final SortedIndex <K, ID, E> index;
+        private final K from;
+        private final K to;
+
+        private RangeCondition (String name, SortedIndex <K, ID, E> index, K from, K to) {
+            this.name = name;
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int estimate () {
+            return index.countRange(from, to);
+        }
+
+        @Override
+        public Collection <E> fetch () {
+            return index.range(from, to);
+        }
+
+        @Override
+        public boolean test (E element) {
+            return SortedIndex.inRange(index.keyOf(element), from, to);
+        }
+
+        @Override
+        public String describe () {
+            return name + " in [" + (from == null ? "" : from) + ", " + (to == null ? "" : to) + "]";
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.model.cine.Showtime;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+// Showtimes by date, one file per day in a directory. A day is read from disk the first time it is asked for and
+// kept in memory while it is in use; the least recently used days are written back and dropped once more than
+// `maxCachedDays` are loaded. Today is never dropped, so the day the cinema is selling stays in memory.
+// Days before a given date can be archived explicitly: they are written and dropped right away.
+// A day with a pending seat hold is never dropped either, since the hold points at that day's seat maps.
+// Only the cache itself is guarded by the calendar's lock, so that looking up days, flushing and evicting from
+// several threads cannot corrupt it. The DaySchedule handed out is not thread-safe: changes to a day, and
+// flushing it, must come from one thread at a time.
+public final class ScheduleCalendar {
+    private static final int DEFAULT_MAX_CACHED_DAYS = 31;
+    private static final String FILE_EXTENSION = ".bin";
+
+    // Attributes:
+    private final Path directory;
+    private final int maxCachedDays;
+    private final LinkedHashMap <LocalDate, DaySchedule> cachedDays = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Constructor:
+    public ScheduleCalendar (String directory) {
+        this (directory, DEFAULT_MAX_CACHED_DAYS);
+    }
+
+    public ScheduleCalendar (String directory, int maxCachedDays) {
+        if (maxCachedDays < 1) {
+            throw new IllegalArgumentException("The calendar must keep at least one day in memory.");
+        }
+        this.directory = Path.of(directory);
+        this.maxCachedDays = maxCachedDays;
+    }
+
+    // Lookup:
+    // The schedule of a date, loaded from its file if it is not in memory yet. Never null; throws
+    // IllegalStateException if the file exists but cannot be read.
+    public synchronized DaySchedule getDay (LocalDate date) {
+        DaySchedule day = cachedDays.get(date);
+        if (day != null) {
+            return day;
+        }
+
+        // A day file that cannot be read in full fails the lookup and is not cached: a partial day would be
+        // written back over the file on the next flush or eviction.
+        DaySchedule loaded = new DaySchedule(date);
+        Path file = pathOf(date);
+        if (Files.exists(file) && !serializerFor(date).read(file.toString(), loaded::add)) {
+            throw new IllegalStateException ("Could not read the schedule of " + date + " from " + file
+                    + "; fix or restore it before using that day.");
+        }
+        loaded.markClean(loaded.seatChangeCount());
+        cachedDays.put(date, loaded);
+        evictOverflow(date);
+        return loaded;
+    }
+
+    public synchronized boolean isCached (LocalDate date) {
+        return cachedDays.containsKey(date);
+    }
+
+    public synchronized int cachedDayCount () {
+        return cachedDays.size();
+    }
+
+    // Archiving:
+    // Writes every loaded day before `date` that changed and drops them from memory. A day that could not be written
+    // or still has pending holds is kept. Returns how many were dropped.
+    public synchronized int archiveBefore (LocalDate date) {
+        int archived = 0;
+        Iterator <DaySchedule> days = cachedDays.values().iterator();
+        while (days.hasNext()) {
+            DaySchedule day = days.next();
+            if (day.getDate().isBefore(date) && !day.hasActiveHolds() && save(day)) {
+                days.remove();
+                archived++;
+            }
+        }
+        return archived;
+    }
+
+    // Writes every loaded day that changed, keeping them in memory.
+    public synchronized void flush () {
+        for (DaySchedule day : cachedDays.values()) {
+            save(day);
+        }
+    }
+
+    // Helpers:
+    // `requested` is the day being handed out, which must stay cached or changes to it would be lost.
+    private void evictOverflow (LocalDate requested) {
+        LocalDate today = LocalDate.now();
+        Iterator <DaySchedule> days = cachedDays.values().iterator();
+        while (cachedDays.size() > maxCachedDays && days.hasNext()) {
+            DaySchedule day = days.next();
+            if (day.getDate().equals(today) || day.getDate().equals(requested) || day.hasActiveHolds() || !save(day)) continue;
+            days.remove();
+        }
+    }
+
+    // False if the day could not be written; it stays dirty so a later flush tries again.
+    private boolean save (DaySchedule day) {
+        if (!day.isDirty()) return true;
+        long seatChanges = day.seatChangeCount();
+        try {
+            Files.createDirectories(directory);
+            serializerFor(day.getDate()).write(pathOf(day.getDate()).toString(), day.findAll());
+        } catch (IOException e) {
+            System.err.println("Error saving the schedule of " + day.getDate() + ": " + e.getMessage());
+            return false;
+        }
+        day.markClean(seatChanges);
+        return true;
+    }
+
+    private Path pathOf (LocalDate date) {
+        return directory.resolve(date + FILE_EXTENSION);
+    }
+
+    private BinarySnapshotSerializer <Showtime> serializerFor (LocalDate date) {
+        return new BinarySnapshotSerializer<>(pathOf(date).toString(), BinaryUtil.SHOWTIME);
+    }
+
+}
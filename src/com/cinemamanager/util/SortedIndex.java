@@ -0,0 +1,85 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.Identifiable;
+
+import java.util.*;
+import java.util.function.Function;
+
+public final class SortedIndex <K extends Comparable <? super K>, ID, E extends Identifiable <ID>> extends HashIndex <K, ID, E> {
+
+    // Constructor:
+    public SortedIndex (Function <E, K> keyExtractor) {
+        super (keyExtractor, new TreeMap<>());
+    }
+
+    // Lookup:
+    // A null bound leaves that side of the range open. Both bounds are inclusive.
+    public List <E> range (K from, K to) {
+        List <E> result = new ArrayList<>();
+        for (Set <E> bucket : view(from, to).values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+
+    // Walks the bucket sizes only, without copying elements.
+    public int countRange (K from, K to) {
+        int count = 0;
+        for (Set <E> bucket : view(from, to).values()) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    // Keyset page in key order, ties broken by ID: seeks to the cursor's key and reads on from there, so a page
+    // costs about pageSize elements however far into the listing it is. Elements with a null key are not indexed
+    // and do not appear. IDs must be Comparable.
+    @SuppressWarnings("unchecked")
+    public Page <E> page (String order, int pageSize, Page.Cursor cursor) {
+        Page.checkPageSize(pageSize);
+        NavigableMap <K, Set <E>> sorted = (NavigableMap <K, Set <E>>) buckets;
+        Comparable <Object> afterId = null;
+        if (cursor != null) {
+            cursor.checkOrder(order);
+            sorted = sorted.tailMap((K) cursor.getKey(), true);
+            afterId = (Comparable <Object>) cursor.getId();
+        }
+
+        List <E> items = new ArrayList<>(pageSize + 1);
+        for (Map.Entry <K, Set <E>> bucket : sorted.entrySet()) {
+            List <E> ties = new ArrayList<>(bucket.getValue());
+            if (ties.size() > 1) {
+                ties.sort(Comparator.comparing(e -> (Comparable <Object>) e.getId()));
+            }
+            boolean cursorBucket = afterId != null && bucket.getKey().compareTo((K) cursor.getKey()) == 0;
+            for (E element : ties) {
+                if (cursorBucket && afterId.compareTo(element.getId()) >= 0) continue;
+                items.add(element);
+                if (items.size() > pageSize) {
+                    return Page.fromOrdered(items, order, this::keyOf, pageSize);
+                }
+            }
+        }
+        return Page.fromOrdered(items, order, this::keyOf, pageSize);
+    }
+
+    static <K extends Comparable <? super K>> boolean inRange (K key, K from, K to) {
+        return key != null && (from == null || key.compareTo(from) >= 0) && (to == null || key.compareTo(to) <= 0);
+    }
+
+    private NavigableMap <K, Set <E>> view (K from, K to) {
+        NavigableMap <K, Set <E>> sorted = (NavigableMap <K, Set <E>>) buckets;
+        if (from == null && to == null) {
+            return sorted;
+        } else if (from == null) {
+            return sorted.headMap(to, true);
+        } else if (to == null) {
+            return sorted.tailMap(from, true);
+        } else if (from.compareTo(to) > 0) {
+            return Collections.emptyNavigableMap();
+        } else {
+            return sorted.subMap(from, true, to, true);
+        }
+    }
+
+}
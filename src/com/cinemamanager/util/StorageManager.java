@@ -1,18 +1,32 @@
 package com.cinemamanager.util;
 
 import com.cinemamanager.enums.CollectionType;
+import com.cinemamanager.enums.ScanMode;
 import com.cinemamanager.exception.DuplicateElementException;
 import com.cinemamanager.iface.ICrud;
+import com.cinemamanager.iface.IIndex;
 import com.cinemamanager.iface.Identifiable;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public final class StorageManager <ID, E extends Identifiable <ID>> implements ICrud <E, ID> {
 
+    // Scans of at least this many elements run in parallel. 0 keeps every scan sequential.
+    private static final int DEFAULT_PARALLEL_THRESHOLD = Integer.getInteger("cinemamanager.parallel.threshold", 0);
+
     // Attributes:
     private Collection <E> collection;
     private Map <ID, E> map;
+    // ID lookup for list and set backings; holds the first stored element for each ID.
+    private Map <ID, E> elementsById;
+    private boolean containsDuplicateIds;
+    private final Map <String, IIndex <ID, E>> indexes = new HashMap<>();
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private final Map <ScanMode, Long> scanCounts = new EnumMap<>(ScanMode.class);
+    private ScanMode lastScanMode;
 
     // Constructor:
     public StorageManager (CollectionType collectionType) {
@@ -45,11 +59,115 @@ public final class StorageManager <ID, E extends Identifiable <ID>> implements I
             map.clear();
         } else {
             collection.clear();
+            elementsById.clear();
+            containsDuplicateIds = false;
+        }
+        indexes.values().forEach(IIndex::clear);
+    }
+
+    // Parallel scans:
+    // findBy and findFirstBy split scans of `threshold` or more elements across the common fork-join pool.
+    // Results keep the order of the backing collection when it has one. A threshold of 0 turns this off.
+    public void setParallelThreshold (int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException ("The parallel threshold cannot be negative.");
+        }
+        this.parallelThreshold = threshold;
+    }
+
+    public int getParallelThreshold () {
+        return parallelThreshold;
+    }
+
+    // How many scans ran in each mode, and which mode the last one used (null before the first scan).
+    public long getScanCount (ScanMode mode) {
+        return scanCounts.getOrDefault(mode, 0L);
+    }
+
+    public ScanMode getLastScanMode () {
+        return lastScanMode;
+    }
+
+    // Secondary indexes:
+    public <K> void addHashIndex (String name, Function <E, K> keyExtractor) {
+        registerIndex(name, new HashIndex<>(keyExtractor));
+    }
+
+    // Adds and updates that would give a second element the same key are rejected.
+    public <K> void addUniqueIndex (String name, Function <E, K> keyExtractor) {
+        registerIndex(name, new UniqueIndex<>(name, keyExtractor));
+    }
+
+    public <K extends Comparable <? super K>> void addSortedIndex (String name, Function <E, K> keyExtractor) {
+        registerIndex(name, new SortedIndex<>(keyExtractor));
+    }
+
+    // Ranked substring, prefix and fuzzy search over a text field. See TextIndex.
+    public void addTextIndex (String name, Function <E, String> textExtractor) {
+        registerIndex(name, new TextIndex<>(textExtractor));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K> List <E> findByIndex (String name, K key) {
+        IIndex <ID, E> index = getIndex(name);
+        return ((HashIndex <K, ID, E>) index).get(key);
+    }
+
+    // Like findByIndex, without copying the matches.
+    @SuppressWarnings("unchecked")
+    public <K> Collection <E> viewByIndex (String name, K key) {
+        IIndex <ID, E> index = getIndex(name);
+        return ((HashIndex <K, ID, E>) index).view(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K extends Comparable <? super K>> List <E> findByRange (String name, K from, K to) {
+        IIndex <ID, E> index = getIndex(name);
+        if (!(index instanceof SortedIndex)) {
+            throw new IllegalArgumentException ("Index '" + name + "' does not support range queries.");
         }
+        return ((SortedIndex <K, ID, E>) index).range(from, to);
+    }
+
+    // Seeks through the sorted index named `order` when there is one, which then supplies the keys, so a page
+    // does not go over the whole store; any other order falls back to a full pass.
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K extends Comparable <? super K>> Page <E> findPage (String order, Function <E, K> sortKey, int pageSize, Page.Cursor cursor) {
+        if (indexes.get(order) instanceof SortedIndex <?, ID, E> index) {
+            return index.page(order, pageSize, cursor);
+        }
+        return ICrud.super.findPage(order, sortKey, pageSize, cursor);
+    }
+
+    // Combined conditions, planned around the most selective index. See Query.
+    public Query <ID, E> query () {
+        return new Query<>(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List <E> findByText (String name, String text, int limit) {
+        IIndex <ID, E> index = getIndex(name);
+        if (!(index instanceof TextIndex)) {
+            throw new IllegalArgumentException ("Index '" + name + "' does not support text search.");
+        }
+        return ((TextIndex <ID, E>) index).search(text, limit);
+    }
+
+    // Must be called after an element stored here has been mutated in place, so its index keys stay current.
+    // Throws if the new values break a unique index; callers should check availability before mutating.
+    public void reindex (E element) throws IllegalArgumentException {
+        checkConstraints(element);
+        insertIntoIndexes(element);
     }
 
     // CRUD methods:
     public void add (E element, boolean duplicatesAllowed) throws DuplicateElementException {
+        try {
+            checkConstraints(element);
+        } catch (IllegalArgumentException e) {
+            throw new DuplicateElementException (e.getMessage());
+        }
         if (!isUsingMap()) {
             addToCollection (element, duplicatesAllowed);
         }
@@ -59,39 +177,52 @@ public final class StorageManager <ID, E extends Identifiable <ID>> implements I
     }
 
     public List <E> findBy (Predicate <E> condition) {
-        Collection <E> values = isUsingMap() ? map.values() : collection;
-        return values.stream()
+        return scan()
                 .filter(condition)
                 .toList();
     }
 
     public Optional <E> findFirstBy(Predicate <E> condition) {
-        Collection <E> values = isUsingMap() ? map.values() : collection;
-        return values.stream()
+        return scan()
                 .filter(condition)
                 .findFirst();
     }
 
     public Optional <E> findById (ID id) {
-        return isUsingMap()
-                ? Optional.ofNullable(map.get(id))
-                : collection.stream()
-                .filter(e -> e.getId().equals(id))
-                .findFirst();
+        return Optional.ofNullable(isUsingMap() ? map.get(id) : elementsById.get(id));
     }
 
     public List<E> findAll() {
         return new ArrayList<>(isUsingMap() ? map.values() : collection);
     }
 
+    public int size () {
+        return values().size();
+    }
+
+    public Collection <E> view () {
+        return Collections.unmodifiableCollection(values());
+    }
+
+    public Stream <E> stream () {
+        return values().stream();
+    }
+
+    // Runs in parallel past the threshold, like findBy.
+    @Override
+    public Stream <E> streamBy (Predicate <E> condition) {
+        return scan().filter(condition);
+    }
+
     public void update(E element) throws IllegalArgumentException {
+        checkConstraints(element);
         if (!isUsingMap()) {
-            collection.removeIf(e -> e.equals(element));
-            collection.add(element);
+            updateInCollection(element);
         } else {
             ID key = element.getId();
             map.put(key, element);
         }
+        insertIntoIndexes(element);
         System.out.println("Element updated successfully!");
     }
 
@@ -104,7 +235,7 @@ public final class StorageManager <ID, E extends Identifiable <ID>> implements I
     }
 
     private void addToCollection (E element, boolean duplicatesAllowed) throws DuplicateElementException {
-        boolean exists = collection.contains(element);
+        boolean exists = elementsById.containsKey(element.getId());
 
         if (!duplicatesAllowed && exists) {
             throw new DuplicateElementException (false);
@@ -114,6 +245,12 @@ public final class StorageManager <ID, E extends Identifiable <ID>> implements I
         }
 
         collection.add(element);
+        if (exists) {
+            containsDuplicateIds = true;
+        } else {
+            elementsById.put(element.getId(), element);
+        }
+        insertIntoIndexes(element);
         System.out.println("Element added successfully!");
     }
 
@@ -126,6 +263,7 @@ public final class StorageManager <ID, E extends Identifiable <ID>> implements I
         }
 
         map.put(key, element);
+        insertIntoIndexes(element);
     }
 
     private void deleteFromMap(ID id) {
@@ -138,6 +276,7 @@ public final class StorageManager <ID, E extends Identifiable <ID>> implements I
         String warning = "This operation is irreversible. The following element will be deleted:\n" + element;
         if (ConsoleUtil.confirm(warning)) {
             map.remove(id);
+            unindex(element);
             System.out.println("Element successfully deleted.");
         }
     }
@@ -148,6 +287,8 @@ public final class StorageManager <ID, E extends Identifiable <ID>> implements I
                     String warning = "This operation is irreversible. The following element will be deleted:\n" + e;
                     if (ConsoleUtil.confirm(warning)) {
                         collection.remove(e);
+                        removeFromIdLookup(e);
+                        unindex(e);
                         System.out.println("Element successfully deleted.");
                     }
                 },
@@ -155,8 +296,43 @@ public final class StorageManager <ID, E extends Identifiable <ID>> implements I
         );
     }
 
+    // An element that was mutated in place and passed back is already the stored instance, so the collection is
+    // left untouched. Lists swap a new instance in at the same position; sets can only re-add it.
+    // Finding that position is a linear search, so replacing an instance in a list backing stays O(n).
+    private void updateInCollection (E element) {
+        E stored = elementsById.get(element.getId());
+        if (stored == null) {
+            collection.add(element);
+            elementsById.put(element.getId(), element);
+            return;
+        }
+        if (stored == element) return;
+
+        if (collection instanceof List <E> list) {
+            list.set(list.indexOf(stored), element);
+        } else {
+            collection.remove(stored);
+            collection.add(element);
+        }
+        elementsById.put(element.getId(), element);
+    }
+
+    private void removeFromIdLookup (E element) {
+        ID id = element.getId();
+        elementsById.remove(id);
+        if (containsDuplicateIds) {
+            for (E remaining : collection) {
+                if (remaining.getId().equals(id)) {
+                    elementsById.put(id, remaining);
+                    break;
+                }
+            }
+        }
+    }
+
     // Constructor-based distinction:
     private Collection <E> createCollection (CollectionType collectionType) {
+        elementsById = new HashMap<>();
         return switch (collectionType) {
             case ARRAY_LIST -> new ArrayList<>();
             case LINKED_LIST -> new LinkedList<>();
@@ -177,6 +353,58 @@ public final class StorageManager <ID, E extends Identifiable <ID>> implements I
         };
     }
 
+    // Index helpers:
+    private void registerIndex (String name, IIndex <ID, E> index) {
+        if (indexes.containsKey(name)) {
+            throw new IllegalArgumentException ("An index named '" + name + "' already exists.");
+        }
+        Collection <E> values = isUsingMap() ? map.values() : collection;
+        for (E element : values) {
+            index.insert(element);
+        }
+        indexes.put(name, index);
+    }
+
+    IIndex <ID, E> getIndex (String name) {
+        IIndex <ID, E> index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException ("No index named '" + name + "'.");
+        }
+        return index;
+    }
+
+    private void checkConstraints (E element) throws IllegalArgumentException {
+        for (IIndex <ID, E> index : indexes.values()) {
+            index.checkInsertable(element);
+        }
+    }
+
+    // Constraints are checked by the caller, before the store itself changes.
+    private void insertIntoIndexes (E element) {
+        for (IIndex <ID, E> index : indexes.values()) {
+            index.insert(element);
+        }
+    }
+
+    private void unindex (E element) {
+        for (IIndex <ID, E> index : indexes.values()) {
+            index.remove(element);
+        }
+    }
+
+    // toList and findFirst respect encounter order in parallel too, so the mode never changes a result.
+    private Stream <E> scan () {
+        Collection <E> values = values();
+        ScanMode mode = parallelThreshold > 0 && values.size() >= parallelThreshold ? ScanMode.PARALLEL : ScanMode.SEQUENTIAL;
+        scanCounts.merge(mode, 1L, Long::sum);
+        lastScanMode = mode;
+        return mode == ScanMode.PARALLEL ? values.parallelStream() : values.stream();
+    }
+
+    Collection <E> values () {
+        return isUsingMap() ? map.values() : collection;
+    }
+
     // Validating:
     private boolean isUsingMap () {
         return map != null;
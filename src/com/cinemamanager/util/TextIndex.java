@@ -0,0 +1,284 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.IIndex;
+import com.cinemamanager.iface.Identifiable;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Inverted index over one text field. Text is lower-cased and stripped of accents, then indexed twice:
+// by trigrams of the whole text, for substring search, and by word, in a sorted map for prefix search.
+// Words also have their own trigram postings so a misspelt word can be matched against similar ones.
+// Results are ranked: the whole query found in the text beats matching words, exact words beat prefixes,
+// and prefixes beat words that are one or two edits away, which are only tried when there are few other matches.
+public final class TextIndex <ID, E extends Identifiable <ID>> implements IIndex <ID, E> {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int PHRASE_SCORE = 100;
+    private static final int PHRASE_AT_START_SCORE = 50;
+    private static final int WORD_SCORE = 20;
+    private static final int PREFIX_SCORE = 10;
+    private static final int FUZZY_SCORE = 4;
+
+    // Attributes:
+    private final Function <E, String> textExtractor;
+    private final Map <ID, E> elementsById = new HashMap<>();
+    private final Map <ID, String> textById = new HashMap<>();
+    private final Map <String, Set <ID>> idsByTrigram = new HashMap<>();
+    private final NavigableMap <String, Set <ID>> idsByWord = new TreeMap<>();
+    private final Map <String, Set <String>> wordsByTrigram = new HashMap<>();
+
+    // Constructor:
+    public TextIndex (Function <E, String> textExtractor) {
+        this.textExtractor = textExtractor;
+    }
+
+    // Maintenance:
+    @Override
+    public void insert (E element) {
+        ID id = element.getId();
+        String raw = textExtractor.apply(element);
+        String text = raw == null ? null : normalize(raw);
+
+        String previous = textById.get(id);
+        if (previous != null && previous.equals(text)) {
+            elementsById.put(id, element);
+            return;
+        }
+        remove(element);
+        if (text == null || text.isEmpty()) return;
+
+        elementsById.put(id, element);
+        textById.put(id, text);
+        for (String trigram : trigrams(text)) {
+            idsByTrigram.computeIfAbsent(trigram, k -> new HashSet<>()).add(id);
+        }
+        for (String word : words(text)) {
+            Set <ID> ids = idsByWord.computeIfAbsent(word, k -> new HashSet<>());
+            if (ids.isEmpty()) {
+                for (String trigram : wordTrigrams(word)) {
+                    wordsByTrigram.computeIfAbsent(trigram, k -> new HashSet<>()).add(word);
+                }
+            }
+            ids.add(id);
+        }
+    }
+
+    @Override
+    public void remove (E element) {
+        ID id = element.getId();
+        String text = textById.remove(id);
+        elementsById.remove(id);
+        if (text == null) return;
+
+        for (String trigram : trigrams(text)) {
+            removePosting(idsByTrigram, trigram, id);
+        }
+        for (String word : words(text)) {
+            Set <ID> ids = idsByWord.get(word);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByWord.remove(word);
+                for (String trigram : wordTrigrams(word)) {
+                    removePosting(wordsByTrigram, trigram, word);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear () {
+        elementsById.clear();
+        textById.clear();
+        idsByTrigram.clear();
+        idsByWord.clear();
+        wordsByTrigram.clear();
+    }
+
+    // Lookup:
+    // Best matches first, at most `limit` of them. Ties go to the shorter text.
+    public List <E> search (String query, int limit) {
+        String phrase = normalize(query);
+        if (phrase.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        Map <ID, Integer> scores = new HashMap<>();
+        scorePhrase(phrase, scores);
+        Set <String> words = new LinkedHashSet<>(words(phrase));
+        for (String word : words) {
+            scoreWord(word, scores);
+        }
+        // Misspellings are only looked for when the query does not already fill the page.
+        if (scores.size() < limit) {
+            for (String word : words) {
+                scoreSimilarWords(word, scores);
+            }
+        }
+
+        // Only the best `limit` are kept while scanning, so a common word does not mean sorting every match.
+        Comparator <Map.Entry <ID, Integer>> better = Map.Entry.<ID, Integer>comparingByValue()
+                .thenComparing(e -> -textById.get(e.getKey()).length());
+        PriorityQueue <Map.Entry <ID, Integer>> best = new PriorityQueue<>(limit + 1, better);
+        for (Map.Entry <ID, Integer> entry : scores.entrySet()) {
+            if (best.size() < limit) {
+                best.add(entry);
+            } else if (better.compare(entry, best.peek()) > 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+
+        List <E> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(elementsById.get(best.poll().getKey()));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    // Scoring:
+    // Substring of the whole text. Short queries have no trigram, so they rely on word prefixes instead.
+    private void scorePhrase (String phrase, Map <ID, Integer> scores) {
+        List <String> trigrams = new ArrayList<>(trigrams(phrase));
+        if (trigrams.isEmpty()) return;
+
+        List <Set <ID>> postings = new ArrayList<>();
+        for (String trigram : trigrams) {
+            Set <ID> ids = idsByTrigram.get(trigram);
+            if (ids == null) return;
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        for (ID id : postings.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < postings.size() && inAll; i++) {
+                inAll = postings.get(i).contains(id);
+            }
+            if (!inAll) continue;
+
+            String text = textById.get(id);
+            int position = text.indexOf(phrase);
+            if (position == -1) continue;
+            scores.merge(id, position == 0 ? PHRASE_SCORE + PHRASE_AT_START_SCORE : PHRASE_SCORE, Integer::sum);
+        }
+    }
+
+    private void scoreWord (String word, Map <ID, Integer> scores) {
+        Set <ID> seen = new HashSet<>();
+        Set <ID> exact = idsByWord.get(word);
+        if (exact != null) {
+            for (ID id : exact) {
+                scores.merge(id, WORD_SCORE, Integer::sum);
+                seen.add(id);
+            }
+        }
+
+        for (Map.Entry <String, Set <ID>> entry : idsByWord.subMap(word, false, word + Character.MAX_VALUE, false).entrySet()) {
+            for (ID id : entry.getValue()) {
+                if (seen.add(id)) scores.merge(id, PREFIX_SCORE, Integer::sum);
+            }
+        }
+    }
+
+    private void scoreSimilarWords (String word, Map <ID, Integer> scores) {
+        int maxEdits = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+        if (maxEdits == 0) return;
+
+        Set <ID> seen = new HashSet<>();
+        for (String similar : similarWords(word, maxEdits)) {
+            for (ID id : idsByWord.get(similar)) {
+                if (seen.add(id)) scores.merge(id, FUZZY_SCORE, Integer::sum);
+            }
+        }
+    }
+
+    // Words within `maxEdits` edits. An edit changes at most three of a word's padded trigrams, so only words that
+    // share enough trigrams with it are compared letter by letter.
+    private List <String> similarWords (String word, int maxEdits) {
+        Set <String> trigrams = wordTrigrams(word);
+        int needed = Math.max(1, trigrams.size() - 3 * maxEdits);
+
+        Map <String, Integer> shared = new HashMap<>();
+        for (String trigram : trigrams) {
+            Set <String> words = wordsByTrigram.get(trigram);
+            if (words == null) continue;
+            for (String candidate : words) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+
+        List <String> similar = new ArrayList<>();
+        for (Map.Entry <String, Integer> entry : shared.entrySet()) {
+            String candidate = entry.getKey();
+            if (entry.getValue() >= needed && !candidate.equals(word)
+                    && Math.abs(candidate.length() - word.length()) <= maxEdits
+                    && editDistance(word, candidate, maxEdits) <= maxEdits) {
+                similar.add(candidate);
+            }
+        }
+        return similar;
+    }
+
+    // Text helpers:
+    static String normalize (String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return ACCENTS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    private static List <String> words (String text) {
+        List <String> words = new ArrayList<>();
+        for (String word : NON_WORD.split(text)) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words;
+    }
+
+    private static Set <String> trigrams (String text) {
+        Set <String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static Set <String> wordTrigrams (String word) {
+        return trigrams("$" + word + "$");
+    }
+
+    // Levenshtein distance, giving up with maxEdits + 1 as soon as a whole row is over the limit.
+    private static int editDistance (String a, String b, int maxEdits) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) return maxEdits + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static <K, V> void removePosting (Map <K, Set <V>> postings, K key, V value) {
+        Set <V> values = postings.get(key);
+        if (values == null) return;
+        values.remove(value);
+        if (values.isEmpty()) postings.remove(key);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.model.cine.Showtime;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Showtimes of one screen, sorted by start time. Showtimes never overlap here, so the entry that starts at or
+// before an instant is the only one that can be running at it, and every lookup is a TreeMap floor/ceiling call
+// instead of a loop over the whole day.
+// Intervals are half-open: a showtime ending at 18:00 leaves room for one starting at 18:00.
+public final class Timeline {
+
+    private final NavigableMap <LocalDateTime, Showtime> showtimesByStart = new TreeMap<>();
+
+    // Lookup:
+    public Optional <Showtime> findOverlapping (LocalDateTime start, LocalDateTime end) {
+        Map.Entry <LocalDateTime, Showtime> before = showtimesByStart.floorEntry(start);
+        if (before != null && before.getValue().getEndTime().isAfter(start)) {
+            return Optional.of(before.getValue());
+        }
+        Map.Entry <LocalDateTime, Showtime> after = showtimesByStart.higherEntry(start);
+        if (after != null && after.getKey().isBefore(end)) {
+            return Optional.of(after.getValue());
+        }
+        return Optional.empty();
+    }
+
+    public Optional <Showtime> findRunningAt (LocalDateTime time) {
+        Map.Entry <LocalDateTime, Showtime> entry = showtimesByStart.floorEntry(time);
+        if (entry != null && entry.getValue().getEndTime().isAfter(time)) {
+            return Optional.of(entry.getValue());
+        }
+        return Optional.empty();
+    }
+
+    // Every showtime running at some point in [from, to), sorted by start time.
+    public List <Showtime> findBetween (LocalDateTime from, LocalDateTime to) {
+        List <Showtime> result = new ArrayList<>();
+        if (!from.isBefore(to)) {
+            return result;
+        }
+        findRunningAt(from).ifPresent(result::add);
+        result.addAll(showtimesByStart.subMap(from, false, to, false).values());
+        return result;
+    }
+
+    public List <Showtime> findAll () {
+        return new ArrayList<>(showtimesByStart.values());
+    }
+
+    public boolean isEmpty () {
+        return showtimesByStart.isEmpty();
+    }
+
+    public int size () {
+        return showtimesByStart.size();
+    }
+
+    // Changes:
+    // False, and nothing stored, if the showtime overlaps one already in the timeline.
+    public boolean add (Showtime showtime) {
+        if (findOverlapping(showtime.getStartTime(), showtime.getEndTime()).isPresent()) {
+            return false;
+        }
+        showtimesByStart.put(showtime.getStartTime(), showtime);
+        return true;
+    }
+
+    public boolean remove (Showtime showtime) {
+        return showtimesByStart.remove(showtime.getStartTime(), showtime);
+    }
+
+}
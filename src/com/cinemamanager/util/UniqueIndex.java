@@ -0,0 +1,40 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.Identifiable;
+
+import java.util.Set;
+import java.util.function.Function;
+
+public final class UniqueIndex <K, ID, E extends Identifiable <ID>> extends HashIndex <K, ID, E> {
+
+    // Attributes:
+    private final String name;
+
+    // Constructor:
+    public UniqueIndex (String name, Function <E, K> keyExtractor) {
+        super (keyExtractor);
+        this.name = name;
+    }
+
+    // A key may only be held by one ID; an element keeping its own key is fine.
+    @Override
+    public void checkInsertable (E element) throws IllegalArgumentException {
+        K key = keyOf(element);
+        if (key == null) return;
+
+        Set <E> holders = buckets.get(key);
+        if (holders == null) return;
+        for (E holder : holders) {
+            if (!holder.getId().equals(element.getId())) {
+                throw new IllegalArgumentException ("The value '" + key + "' is already in use (" + name + ").");
+            }
+        }
+    }
+
+    @Override
+    public void insert (E element) {
+        checkInsertable(element);
+        super.insert(element);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.cinemamanager.util;
+
+import com.cinemamanager.iface.Identifiable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Queues changed entities and writes them to a journal on a background thread, so edits never wait for the disk.
+// The first change after a write schedules the next one `maxDelay` later; everything changed until then goes out
+// in that single append, and an entity changed several times is written once, in its latest state.
+// Entities are serialized when the batch is written. One changed again meanwhile is queued again, so the newest
+// state always follows. A batch that cannot be written is put back in the queue, behind nothing newer, and a retry
+// is scheduled, waiting twice as long after each failure in a row (up to MAX_RETRY_DELAY), so queued changes reach
+// the disk once it recovers even if nothing else changes. flush() throws the error so the caller knows its changes
+// are not saved.
+public final class WriteBehindPersister <ID, E extends Identifiable <ID>> {
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(500);
+    private static final long MAX_RETRY_DELAY_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    // Attributes:
+    private final JournalStore <ID, E> journal;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService writer;
+    private final Object queueLock = new Object();
+    private final Object writeLock = new Object();
+    // A null value is a pending delete.
+    private Map <ID, E> dirty = new LinkedHashMap<>();
+    private ScheduledFuture <?> scheduledWrite;
+    private int failuresInARow;
+
+    // Constructor:
+    public WriteBehindPersister (JournalStore <ID, E> journal) {
+        this (journal, DEFAULT_MAX_DELAY);
+    }
+
+    public WriteBehindPersister (JournalStore <ID, E> journal, Duration maxDelay) {
+        this.journal = journal;
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Queueing:
+    public void markDirty (E element) {
+        enqueue(element.getId(), element);
+    }
+
+    public void markDeleted (ID id) {
+        enqueue(id, null);
+    }
+
+    public int pendingCount () {
+        synchronized (queueLock) {
+            return dirty.size();
+        }
+    }
+
+    // Writing:
+    // Writes everything queued so far on the calling thread and returns once it is in the journal and synced.
+    public void flush () throws IOException {
+        writePending();
+        DurableFiles.syncPending();
+        journal.compactIfDue();
+    }
+
+    private void enqueue (ID id, E element) {
+        synchronized (queueLock) {
+            dirty.remove(id);
+            dirty.put(id, element);
+            if (scheduledWrite == null) {
+                scheduledWrite = writer.schedule(this::writeInBackground, maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        // Compaction copies the live store, so it is started here on the owner's thread, never by the writer.
+        journal.compactIfDue();
+    }
+
+    // Batches are written one at a time and in the order they were taken, so a later state never lands first.
+    private void writePending () throws IOException {
+        synchronized (writeLock) {
+            Map <ID, E> batch;
+            synchronized (queueLock) {
+                batch = dirty;
+                dirty = new LinkedHashMap<>();
+                if (scheduledWrite != null) {
+                    scheduledWrite.cancel(false);
+                    scheduledWrite = null;
+                }
+            }
+            try {
+                journal.write(batch);
+            } catch (IOException e) {
+                requeue(batch);
+                throw e;
+            }
+            synchronized (queueLock) {
+                failuresInARow = 0;
+            }
+        }
+    }
+
+    private void writeInBackground () {
+        try {
+            writePending();
+        } catch (IOException e) {
+            System.err.println("Error writing changes, " + pendingCount() + " kept and retried later: " + e.getMessage());
+        }
+    }
+
+    // Entities changed again since the batch was taken keep their newer state. The retry replaces any write
+    // already scheduled, so a failing disk is not hit again after only maxDelay.
+    private void requeue (Map <ID, E> batch) {
+        synchronized (queueLock) {
+            Map <ID, E> merged = new LinkedHashMap<>(batch);
+            for (Map.Entry <ID, E> change : dirty.entrySet()) {
+                merged.remove(change.getKey());
+                merged.put(change.getKey(), change.getValue());
+            }
+            dirty = merged;
+
+            failuresInARow++;
+            long retryDelay = Math.min(MAX_RETRY_DELAY_MILLIS, Math.max(1, maxDelayMillis) << Math.min(failuresInARow, 20));
+            if (scheduledWrite != null) {
+                scheduledWrite.cancel(false);
+            }
+            scheduledWrite = writer.schedule(this::writeInBackground, retryDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+}